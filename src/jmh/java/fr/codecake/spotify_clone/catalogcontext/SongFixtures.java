@@ -0,0 +1,56 @@
+package fr.codecake.spotify_clone.catalogcontext;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Données en mémoire pour les benchmarks : générées avec une graine fixe, aucune base ni réseau.
+ */
+public final class SongFixtures {
+
+    private static final String COVER_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private SongFixtures() {
+    }
+
+    public static Song song(long id) {
+        Song song = new Song();
+        song.setId(id);
+        song.setPublicId(new UUID(id, id));
+        song.setTitle("Song title " + id);
+        song.setAuthor("Author " + (id % 97));
+        song.setCoverHash(COVER_HASH);
+        song.setCoverContentType("image/jpeg");
+        return song;
+    }
+
+    public static List<SongSummary> songSummaries(int count) {
+        List<SongSummary> songs = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            songs.add(new SongSummary(id, new UUID(id, id), "Song title " + id, "Author " + (id % 97), COVER_HASH, "image/jpeg"));
+        }
+        return songs;
+    }
+
+    // Identifiants de favoris tirés parmi les count premières chansons.
+    public static List<Long> favoriteSongIds(int catalogSize, int favoriteCount) {
+        Random random = new Random(42);
+        return random.longs(0, catalogSize)
+                .map(id -> id + 1)
+                .distinct()
+                .limit(Math.min(favoriteCount, catalogSize))
+                .boxed()
+                .toList();
+    }
+
+    public static byte[] cover(int size) {
+        byte[] cover = new byte[size];
+        new Random(42).nextBytes(cover);
+        return cover;
+    }
+}
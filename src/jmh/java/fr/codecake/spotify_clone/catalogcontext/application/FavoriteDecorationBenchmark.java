@@ -0,0 +1,67 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.SongFixtures;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapperImpl;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Décoration du statut favori d'une liste de chansons : l'ancienne recherche List.contains
+ * (O(chansons x favoris), telle que fetchFavoritesStatusForSongs la faisait) comparée au bitmap FavoriteMembership.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FavoriteDecorationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int catalogSize;
+
+    @Param({"10", "100", "1000"})
+    int favoriteCount;
+
+    private final SongMapper songMapper = new SongMapperImpl();
+
+    private List<SongSummary> songs;
+
+    private List<UUID> favoritePublicIds;
+
+    private FavoriteMembership favoriteMembership;
+
+    @Setup
+    public void setUp() {
+        songs = SongFixtures.songSummaries(catalogSize);
+        List<Long> favoriteSongIds = SongFixtures.favoriteSongIds(catalogSize, favoriteCount);
+        favoritePublicIds = favoriteSongIds.stream().map(id -> new UUID(id, id)).toList();
+        favoriteMembership = FavoriteMembership.of(favoriteSongIds);
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> listContains() {
+        return songs.stream().map(song -> {
+            ReadSongInfoDTO readSongInfoDTO = songMapper.songSummaryToReadSongInfoDTO(song);
+            if(favoritePublicIds.contains(readSongInfoDTO.getPublicId())) {
+                readSongInfoDTO.setFavorite(true);
+            }
+            return readSongInfoDTO;
+        }).toList();
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> favoriteMembership() {
+        return songs.stream().map(song -> {
+            ReadSongInfoDTO readSongInfoDTO = songMapper.songSummaryToReadSongInfoDTO(song);
+            readSongInfoDTO.setFavorite(favoriteMembership.contains(song.id()));
+            return readSongInfoDTO;
+        }).toList();
+    }
+}
@@ -0,0 +1,61 @@
+package fr.codecake.spotify_clone.catalogcontext.application.mapper;
+
+import fr.codecake.spotify_clone.catalogcontext.SongFixtures;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
+import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SongMapperBenchmark {
+
+    // Implémentation générée par MapStruct, instanciée sans contexte Spring.
+    private final SongMapper songMapper = new SongMapperImpl();
+
+    private Song song;
+
+    private SongSummary songSummary;
+
+    @Setup
+    public void setUp() {
+        song = SongFixtures.song(42);
+        songSummary = SongFixtures.songSummaries(1).get(0);
+    }
+
+    @Benchmark
+    public ReadSongInfoDTO songToReadSongInfoDTO() {
+        return songMapper.songToReadSongInfoDTO(song);
+    }
+
+    @Benchmark
+    public ReadSongInfoDTO songSummaryToReadSongInfoDTO() {
+        return songMapper.songSummaryToReadSongInfoDTO(songSummary);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        @Param({"50", "200"})
+        int pageSize;
+
+        List<SongSummary> songs;
+
+        @Setup
+        public void setUp() {
+            songs = SongFixtures.songSummaries(pageSize);
+        }
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> mapPage(Page page) {
+        return page.songs.stream().map(songMapper::songSummaryToReadSongInfoDTO).toList();
+    }
+}
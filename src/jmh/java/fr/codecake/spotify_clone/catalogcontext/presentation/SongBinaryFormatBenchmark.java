@@ -0,0 +1,90 @@
+package fr.codecake.spotify_clone.catalogcontext.presentation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import fr.codecake.spotify_clone.catalogcontext.SongFixtures;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongContentDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage et décodage d'une page de chansons et d'un contenu audio selon la représentation négociée :
+ * JSON (défaut, audio en base64) comparé à CBOR et Smile (audio écrit tel quel).
+ * La taille des réponses de chaque format est affichée au démarrage de l'essai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SongBinaryFormatBenchmark {
+
+    private static final TypeReference<List<ReadSongInfoDTO>> SONG_PAGE = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"50"})
+    int pageSize;
+
+    @Param({"262144", "4194304"})
+    int audioSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<ReadSongInfoDTO> songs;
+
+    private SongContentDTO content;
+
+    private byte[] encodedSongs;
+
+    private byte[] encodedContent;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> new ObjectMapper();
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        SongMapper songMapper = new SongMapperImpl();
+        songs = SongFixtures.songSummaries(pageSize).stream().map(songMapper::songSummaryToReadSongInfoDTO).toList();
+        content = new SongContentDTO(UUID.randomUUID(), SongFixtures.cover(audioSize), "audio/mpeg");
+        encodedSongs = objectMapper.writeValueAsBytes(songs);
+        encodedContent = objectMapper.writeValueAsBytes(content);
+        System.out.printf("%n%s: page of %d songs = %d bytes, content of %d bytes = %d bytes%n",
+                format, pageSize, encodedSongs.length, audioSize, encodedContent.length);
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws IOException {
+        return objectMapper.writeValueAsBytes(songs);
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> decodePage() throws IOException {
+        return objectMapper.readValue(encodedSongs, SONG_PAGE);
+    }
+
+    @Benchmark
+    public byte[] encodeContent() throws IOException {
+        return objectMapper.writeValueAsBytes(content);
+    }
+
+    @Benchmark
+    public SongContentDTO decodeContent() throws IOException {
+        return objectMapper.readValue(encodedContent, SongContentDTO.class);
+    }
+}
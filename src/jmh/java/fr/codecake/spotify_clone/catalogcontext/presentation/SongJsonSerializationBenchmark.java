@@ -0,0 +1,63 @@
+package fr.codecake.spotify_clone.catalogcontext.presentation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.codecake.spotify_clone.catalogcontext.SongFixtures;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation Jackson d'une page de chansons : la forme actuelle (URL de pochette)
+ * comparée à l'ancienne forme qui embarquait les octets de la pochette (encodés en base64).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SongJsonSerializationBenchmark {
+
+    @Param({"50", "200"})
+    int pageSize;
+
+    @Param({"30000"})
+    int coverSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<ReadSongInfoDTO> songs;
+
+    private List<InlineCoverSong> inlineCoverSongs;
+
+    @Setup
+    public void setUp() {
+        SongMapper songMapper = new SongMapperImpl();
+        songs = SongFixtures.songSummaries(pageSize).stream().map(songMapper::songSummaryToReadSongInfoDTO).toList();
+        byte[] cover = SongFixtures.cover(coverSize);
+        inlineCoverSongs = songs.stream()
+                .map(song -> new InlineCoverSong(song.getTitle().value(), song.getAuthor().value(), cover,
+                        song.getCoverContentType(), song.isFavorite(), song.getPublicId()))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] coverUrl() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(songs);
+    }
+
+    @Benchmark
+    public byte[] inlineCover() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(inlineCoverSongs);
+    }
+
+    public record InlineCoverSong(String title, String author, byte[] cover, String coverContentType,
+                                  boolean favorite, UUID publicId) {
+    }
+}
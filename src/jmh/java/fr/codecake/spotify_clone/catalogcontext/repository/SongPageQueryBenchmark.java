@@ -0,0 +1,135 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.SongFixtures;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapperImpl;
+import fr.codecake.spotify_clone.catalogcontext.domain.Favorite;
+import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Une page de GET /api/songs lue sur un catalogue H2 en mémoire : l'ancienne requête d'entités Song gérées
+ * (instantanés de dirty checking, contexte de persistance) comparée à la projection SongSummary de findPageAfter.
+ * Temps par page : les lignes/s valent pageSize / temps ; l'allocation par requête est gc.alloc.rate.norm
+ * du profileur gc (actif par défaut dans jmh.args).
+ * La pochette n'est plus une colonne mappée (BlobStore) : l'écart mesuré ne compte plus la lecture de l'ancien @Lob.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SongPageQueryBenchmark {
+
+    private static final String ENTITY_PAGE_QUERY = "SELECT s FROM Song s WHERE s.id > :afterId ORDER BY s.id";
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"100000"})
+    int catalogSize;
+
+    @Param({"50"})
+    int pageSize;
+
+    private final SongMapper songMapper = new SongMapperImpl();
+
+    private final Random random = new Random(42);
+
+    private SessionFactory sessionFactory;
+
+    private EntityManager entityManager;
+
+    private SongRepository songRepository;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Song.class)
+                .addAnnotatedClass(Favorite.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:song_page_query")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create")
+                .buildSessionFactory();
+        entityManager = sessionFactory.createEntityManager();
+        seed();
+        // Le fragment de recherche n'est pas appelé ici : sa dépendance reste vide.
+        songRepository = new JpaRepositoryFactory(entityManager)
+                .getRepository(SongRepository.class, RepositoryFragments.just(new SongSearchRepositoryImpl(null)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+    }
+
+    private void seed() {
+        List<SongSummary> songs = SongFixtures.songSummaries(catalogSize);
+        entityManager.getTransaction().begin();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO song (id, public_id, title, author, cover_hash, cover_content_type)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                    """)) {
+                for (int i = 0; i < songs.size(); i++) {
+                    SongSummary song = songs.get(i);
+                    insert.setLong(1, song.id());
+                    insert.setObject(2, song.publicId());
+                    insert.setString(3, song.title());
+                    insert.setString(4, song.author());
+                    insert.setString(5, song.coverHash());
+                    insert.setString(6, song.coverContentType());
+                    insert.addBatch();
+                    if((i + 1) % SEED_BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        });
+        entityManager.getTransaction().commit();
+    }
+
+    // Une page au hasard du catalogue ; le contexte est vidé après chaque requête, comme en fin de requête HTTP.
+    private long nextAfterId() {
+        return random.nextInt(catalogSize - pageSize);
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> entities() {
+        List<Song> songs = entityManager.createQuery(ENTITY_PAGE_QUERY, Song.class)
+                .setParameter("afterId", nextAfterId())
+                .setMaxResults(pageSize)
+                .getResultList();
+        List<ReadSongInfoDTO> page = songs.stream().map(songMapper::songToReadSongInfoDTO).toList();
+        entityManager.clear();
+        return page;
+    }
+
+    @Benchmark
+    public List<ReadSongInfoDTO> projection() {
+        List<ReadSongInfoDTO> page = songRepository.findPageAfter(nextAfterId(), PageRequest.of(0, pageSize))
+                .stream()
+                .map(songMapper::songSummaryToReadSongInfoDTO)
+                .toList();
+        entityManager.clear();
+        return page;
+    }
+}
@@ -0,0 +1,48 @@
+package fr.codecake.spotify_clone.usercontext.application;
+
+import fr.codecake.spotify_clone.usercontext.domain.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAttributesMappingBenchmark {
+
+    // mapOauth2AttributesToUser n'utilise ni le repository ni le mapper.
+    private final UserService userService = new UserService(null, null, 1, Duration.ofMinutes(1));
+
+    private Map<String, Object> auth0Attributes;
+
+    private Map<String, Object> minimalAttributes;
+
+    @Setup
+    public void setUp() {
+        auth0Attributes = Map.of(
+                "sub", "google-oauth2|104329876543210987654",
+                "preferred_username", "Jane.Doe@example.com",
+                "given_name", "Jane",
+                "family_name", "Doe",
+                "email", "jane.doe@example.com",
+                "picture", "https://lh3.googleusercontent.com/a/jane-doe",
+                "updated_at", Instant.parse("2024-06-01T10:15:30Z"));
+        minimalAttributes = Map.of("sub", "auth0|6650f0c1a2b3c4d5e6f70819");
+    }
+
+    @Benchmark
+    public User auth0Profile() {
+        return userService.mapOauth2AttributesToUser(auth0Attributes);
+    }
+
+    @Benchmark
+    public User subjectOnly() {
+        return userService.mapOauth2AttributesToUser(minimalAttributes);
+    }
+}
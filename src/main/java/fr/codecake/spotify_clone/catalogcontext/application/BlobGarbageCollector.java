@@ -0,0 +1,84 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Supprime du BlobStore les blobs dont le compteur de références est à 0 (fichier d'origine d'un audio découpé en blocs...).
+ * Un blob n'est supprimé qu'après grace-period sans écriture : un upload qui vient de le réutiliser (put dédupliqué)
+ * le rend récent, et a le temps de le compter avant qu'il ne soit éligible. La ligne est retirée de blob_ref
+ * avant le fichier, et seulement si elle est toujours à 0 ; plusieurs instances peuvent passer en même temps.
+ */
+@Component
+public class BlobGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    private final BlobRefService blobRefService;
+
+    private final BlobStore blobStore;
+
+    private final Duration gracePeriod;
+
+    private final int batchSize;
+
+    public BlobGarbageCollector(BlobRefService blobRefService,
+                                BlobStore blobStore,
+                                @Value("${application.storage.gc.grace-period:24h}") Duration gracePeriod,
+                                @Value("${application.storage.gc.batch-size:500}") int batchSize) {
+        this.blobRefService = blobRefService;
+        this.blobStore = blobStore;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${application.storage.gc.initial-delay:60000}",
+            fixedDelayString = "${application.storage.gc.fixed-delay:3600000}")
+    public void collect() {
+        int deletedBlobs = 0;
+        String lastHash = "";
+        List<String> hashes;
+        while (!(hashes = blobRefService.findUnreferencedHashesAfter(lastHash, batchSize)).isEmpty()) {
+            for (String hash : hashes) {
+                try {
+                    if(collect(hash)) {
+                        deletedBlobs++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Unable to delete unreferenced blob {}", hash, e);
+                }
+                lastHash = hash;
+            }
+        }
+        if(deletedBlobs > 0) {
+            log.info("Deleted {} unreferenced blobs from the blob store", deletedBlobs);
+        }
+    }
+
+    private boolean collect(String hash) throws IOException {
+        if(blobStore.exists(hash) && recentlyWritten(hash)) {
+            return false;
+        }
+        if(!blobRefService.forgetUnreferenced(hash)) {
+            return false;
+        }
+        // Dernière vérification juste avant la suppression : un upload a pu réutiliser le blob depuis la première.
+        if(blobStore.exists(hash) && recentlyWritten(hash)) {
+            return false;
+        }
+        return blobStore.delete(hash);
+    }
+
+    private boolean recentlyWritten(String hash) throws IOException {
+        return blobStore.lastModified(hash).isAfter(Instant.now().minus(gracePeriod));
+    }
+}
@@ -0,0 +1,58 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.BlobRefRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.BlobRefUsage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bilan de la déduplication sur tout le catalogue, lu périodiquement dans blob_ref plutôt qu'à chaque scrape :
+ * storage.dedup.ratio (octets référencés / octets stockés) et storage.dedup.saved (octets évités).
+ * Les écritures évitées à l'upload sont comptées à part par MeteredBlobStore.
+ */
+@Component
+public class BlobRefMetrics {
+
+    private final BlobRefRepository blobRefRepository;
+
+    private final AtomicLong blobCount = new AtomicLong();
+
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private final AtomicLong referencedBytes = new AtomicLong();
+
+    public BlobRefMetrics(BlobRefRepository blobRefRepository, MeterRegistry meterRegistry) {
+        this.blobRefRepository = blobRefRepository;
+        Gauge.builder("storage.blobs", blobCount, AtomicLong::get)
+                .description("Referenced blobs in the blob store")
+                .register(meterRegistry);
+        Gauge.builder("storage.blobs.size", storedBytes, AtomicLong::get)
+                .description("Bytes of referenced blobs, each stored once")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.saved", this, metrics -> metrics.referencedBytes.get() - metrics.storedBytes.get())
+                .description("Bytes not stored thanks to content sharing")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.ratio", this, BlobRefMetrics::ratio)
+                .description("Referenced bytes per stored byte")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.storage.dedup.metrics-refresh-delay:300000}")
+    public void refresh() {
+        BlobRefUsage usage = blobRefRepository.findUsage();
+        blobCount.set(usage.getBlobCount());
+        storedBytes.set(usage.getStoredBytes());
+        referencedBytes.set(usage.getReferencedBytes());
+    }
+
+    private double ratio() {
+        long stored = storedBytes.get();
+        return stored == 0 ? 1.0 : (double) referencedBytes.get() / stored;
+    }
+}
@@ -0,0 +1,56 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Commande de recalcul des compteurs de références, pour les chansons créées avant leur mise en place :
+ * java -jar spotify-clone-back.jar --rebuild-blob-refs
+ * À lancer sans upload en cours, les compteurs étant effacés puis recalculés. L'application s'arrête ensuite.
+ */
+@Component
+public class BlobRefRebuildRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobRefRebuildRunner.class);
+
+    private static final String REBUILD_OPTION = "rebuild-blob-refs";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BlobRefService blobRefService;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    public BlobRefRebuildRunner(BlobRefService blobRefService,
+                                ConfigurableApplicationContext applicationContext) {
+        this.blobRefService = blobRefService;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if(!args.containsOption(REBUILD_OPTION)) {
+            return;
+        }
+
+        int blobCount = blobRefService.recountFromReferences();
+        int missing = 0;
+        String lastHash = "";
+        List<String> hashes;
+        while (!(hashes = blobRefService.findHashesAfter(lastHash, BATCH_SIZE)).isEmpty()) {
+            missing += blobRefService.refreshSizes(hashes);
+            lastHash = hashes.get(hashes.size() - 1);
+        }
+
+        log.info("Blob references rebuilt : {} blobs referenced, {} missing from the blob store", blobCount, missing);
+        int exitCode = missing == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
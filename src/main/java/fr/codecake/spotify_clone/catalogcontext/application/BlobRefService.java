@@ -0,0 +1,125 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SaveSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.domain.BlobRef;
+import fr.codecake.spotify_clone.catalogcontext.repository.BlobRefRepository;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.StoredBlob;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comptage des références aux blobs partagés, dans la transaction qui crée ou modifie les références.
+ * Les versions réduites des pochettes n'y figurent pas : elles dérivent de leur pochette et sont partagées avec elle.
+ */
+@Service
+@Transactional
+public class BlobRefService {
+
+    private final BlobRefRepository blobRefRepository;
+
+    private final BlobStore blobStore;
+
+    public BlobRefService(BlobRefRepository blobRefRepository, BlobStore blobStore) {
+        this.blobRefRepository = blobRefRepository;
+        this.blobStore = blobStore;
+    }
+
+    // Un lot entier en une passe : la pochette commune aux titres d'un album ne fait qu'une ligne, incrémentée d'autant.
+    public void retainSongs(List<SaveSongDTO> saveSongDTOs) {
+        Map<String, BlobRef> increments = new HashMap<>();
+        for (SaveSongDTO saveSongDTO : saveSongDTOs) {
+            BlobRef coverIncrement = increments.computeIfAbsent(saveSongDTO.coverHash(), coverHash -> blobRef(coverHash, sizeOf(coverHash), 0));
+            coverIncrement.setRefCount(coverIncrement.getRefCount() + 1);
+            addChunks(increments, saveSongDTO.fileChunkHashes(), saveSongDTO.fileChunkSize(), saveSongDTO.fileSize());
+        }
+        blobRefRepository.incrementAll(increments.values());
+    }
+
+    public void retainChunks(List<String> chunkHashes, int chunkSize, long fileSize) {
+        Map<String, BlobRef> increments = new HashMap<>();
+        addChunks(increments, chunkHashes, chunkSize, fileSize);
+        blobRefRepository.incrementAll(increments.values());
+    }
+
+    // Blobs écrits par un upload, comptés à 0 tant qu'aucune chanson ne les référence :
+    // si l'upload est rejeté ou abandonné, BlobGarbageCollector les supprime.
+    public void track(List<StoredBlob> storedBlobs) {
+        Map<String, BlobRef> rows = new HashMap<>();
+        storedBlobs.forEach(storedBlob -> rows.putIfAbsent(storedBlob.hash(), blobRef(storedBlob.hash(), storedBlob.size(), 0)));
+        blobRefRepository.incrementAll(rows.values());
+    }
+
+    public void retain(String hash, long size) {
+        blobRefRepository.incrementAll(List.of(blobRef(hash, size, 1)));
+    }
+
+    public void release(String hash) {
+        blobRefRepository.release(hash);
+    }
+
+    // Recalcul complet depuis les références en base, pour les données antérieures au comptage ou après une dérive.
+    public int recountFromReferences() {
+        blobRefRepository.deleteAllRows();
+        return blobRefRepository.insertCountsFromReferences();
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findHashesAfter(String afterHash, int limit) {
+        return blobRefRepository.findHashesAfter(afterHash, limit);
+    }
+
+    // Renvoie le nombre de blobs introuvables dans le BlobStore, dont la taille reste à 0.
+    public int refreshSizes(List<String> hashes) {
+        int missing = 0;
+        for (String hash : hashes) {
+            if(blobStore.exists(hash)) {
+                blobRefRepository.updateSize(hash, sizeOf(hash));
+            } else {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findUnreferencedHashesAfter(String afterHash, int limit) {
+        return blobRefRepository.findUnreferencedHashesAfter(afterHash, limit);
+    }
+
+    // Renvoie false si le blob a été de nouveau référencé entre-temps : il ne doit alors pas être supprimé.
+    public boolean forgetUnreferenced(String hash) {
+        return blobRefRepository.deleteUnreferenced(hash) == 1;
+    }
+
+    // Taille de chaque bloc déduite du découpage : seul le dernier peut être plus court.
+    private void addChunks(Map<String, BlobRef> increments, List<String> chunkHashes, long chunkSize, long fileSize) {
+        for (int seq = 0; seq < chunkHashes.size(); seq++) {
+            long chunkLength = Math.min(chunkSize, fileSize - seq * chunkSize);
+            BlobRef increment = increments.computeIfAbsent(chunkHashes.get(seq), chunkHash -> blobRef(chunkHash, chunkLength, 0));
+            increment.setRefCount(increment.getRefCount() + 1);
+        }
+    }
+
+    private long sizeOf(String hash) {
+        try {
+            return blobStore.size(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the size of blob " + hash, e);
+        }
+    }
+
+    private BlobRef blobRef(String hash, long size, long refCount) {
+        BlobRef blobRef = new BlobRef();
+        blobRef.setHash(hash);
+        blobRef.setSize(size);
+        blobRef.setRefCount(refCount);
+        return blobRef;
+    }
+}
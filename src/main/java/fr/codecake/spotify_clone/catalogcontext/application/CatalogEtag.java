@@ -0,0 +1,61 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.usercontext.application.UserService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * ETag des listes du catalogue, calculé sans lire les chansons : version du catalogue (compteur de modifications,
+ * voir CatalogVersion), paramètres de la requête, représentation demandée (JSON, CBOR...) et empreinte des favoris
+ * de l'utilisateur (qui décorent chaque chanson). Un If-None-Match qui correspond est donc traité sans passer
+ * par SongService ni par la base. Toute création change la version : l'ETag est à jour après commit sur l'instance
+ * qui a créé la chanson, et au plus tard après application.catalog.version.refresh-delay sur les autres.
+ */
+@Component
+public class CatalogEtag {
+
+    private final CatalogVersion catalogVersion;
+
+    private final UserService userService;
+
+    private final FavoriteMembershipCache favoriteMembershipCache;
+
+    public CatalogEtag(CatalogVersion catalogVersion, UserService userService, FavoriteMembershipCache favoriteMembershipCache) {
+        this.catalogVersion = catalogVersion;
+        this.userService = userService;
+        this.favoriteMembershipCache = favoriteMembershipCache;
+    }
+
+    public String forPage(String cursor, Integer limit, String accept) {
+        return etagOf("page", cursor, limit, accept);
+    }
+
+    public String forSearch(String term, Integer limit, String accept) {
+        return etagOf("search", term, limit, accept);
+    }
+
+    private String etagOf(String kind, String query, Integer limit, String accept) {
+        FavoriteMembership favoriteMembership = userService.isAuthenticated()
+                ? favoriteMembershipCache.get(userService.getAuthenticatedUserFormSecurityContext().email())
+                : FavoriteMembership.EMPTY;
+        long version = catalogVersion.current();
+
+        // Paramètres hachés : un terme de recherche arbitraire ne se retrouve pas tel quel dans l'en-tête.
+        String validator = kind + '\n' + (query == null ? "" : query) + '\n' + limit + '\n' + accept
+                + '\n' + favoriteMembership.fingerprint();
+        byte[] digest = sha256(validator.getBytes(StandardCharsets.UTF_8));
+        return "\"" + version + "-" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache des lectures du catalogue (pages et recherches), indexé par la version du catalogue :
+ * une création change la version, les anciennes entrées ne sont plus jamais lues et finissent évincées.
+ * Seules les projections immuables sont gardées ; le statut favori est appliqué à la lecture.
+ */
+@Component
+public class CatalogReadCache {
+
+    // Estimation de l'empreinte d'un SongSummary hors chaînes : record, UUID, Long, références.
+    private static final int SONG_SUMMARY_BYTES = 160;
+
+    private final Cache<CatalogReadKey, List<SongSummary>> songsByKey;
+
+    private final CatalogVersion catalogVersion;
+
+    public CatalogReadCache(CatalogVersion catalogVersion,
+                            MeterRegistry meterRegistry,
+                            @Value("${application.catalog.cache.max-size:64MB}") DataSize maxSize,
+                            @Value("${application.catalog.cache.time-to-live:10m}") Duration timeToLive) {
+        this.catalogVersion = catalogVersion;
+        this.songsByKey = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CatalogReadKey key, List<SongSummary> songs) -> weightOf(songs))
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, songsByKey, "catalogRead");
+    }
+
+    public List<SongSummary> page(long afterId, int limit, Supplier<List<SongSummary>> loader) {
+        return get(new CatalogReadKey(catalogVersion.current(), "page", String.valueOf(afterId), limit), loader);
+    }
+
+    public List<SongSummary> search(String query, int limit, Supplier<List<SongSummary>> loader) {
+        return get(new CatalogReadKey(catalogVersion.current(), "search", query, limit), loader);
+    }
+
+    private List<SongSummary> get(CatalogReadKey key, Supplier<List<SongSummary>> loader) {
+        return songsByKey.get(key, ignored -> List.copyOf(loader.get()));
+    }
+
+    static int weightOf(List<SongSummary> songs) {
+        int weight = 64;
+        for (SongSummary song : songs) {
+            weight += SONG_SUMMARY_BYTES + 2 * (length(song.title()) + length(song.author())
+                    + length(song.coverHash()) + length(song.coverContentType()));
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record CatalogReadKey(long version, String kind, String query, int limit) {
+    }
+}
@@ -0,0 +1,231 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.event.SongCreatedEvent;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.repository.CatalogVersionCounterRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Premières pages de GET /api/songs telles que vues par un visiteur anonyme (aucun favori), gardées sous forme
+ * d'octets JSON prêts à l'envoi, en clair et compressés : ni Jackson ni gzip au moment de la requête.
+ * Chaque chanson n'est encodée qu'une fois ; une création locale qui suit directement la version de l'instantané
+ * ne réassemble et ne recompresse que la dernière page. Tout autre changement du compteur de modifications
+ * (création d'une autre instance, commit dans le désordre) fait reconstruire l'instantané au rafraîchissement suivant ;
+ * d'ici là, il n'est plus servi puisque sa version n'est plus la version courante.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    public record Page(byte[] json, byte[] gzip, String next) {
+    }
+
+    // Une page : ses chansons déjà encodées une à une, et leur assemblage prêt à l'envoi.
+    private record SnapshotPage(long afterId, long lastSongId, List<byte[]> encodedSongs, byte[] json, byte[] gzip) {
+    }
+
+    private record Snapshot(long version, List<SnapshotPage> pages, boolean hasMore) {
+
+        long lastSongId() {
+            return pages.isEmpty() ? 0 : pages.get(pages.size() - 1).lastSongId();
+        }
+    }
+
+    private final SongRepository songRepository;
+
+    private final CatalogVersionCounterRepository catalogVersionCounterRepository;
+
+    private final SongMapper songMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final CatalogVersion catalogVersion;
+
+    private final boolean enabled;
+
+    private final int pageSize;
+
+    private final int maxPages;
+
+    // null tant que l'instantané n'est pas construit, ou après une création qu'il ne peut pas ajouter.
+    private volatile Snapshot snapshot;
+
+    public CatalogSnapshot(SongRepository songRepository,
+                           CatalogVersionCounterRepository catalogVersionCounterRepository,
+                           SongMapper songMapper,
+                           ObjectMapper objectMapper,
+                           CatalogVersion catalogVersion,
+                           @Value("${application.catalog.snapshot.enabled:true}") boolean enabled,
+                           @Value("${application.catalog.page.default-size:50}") int pageSize,
+                           @Value("${application.catalog.snapshot.max-pages:20}") int maxPages) {
+        this.songRepository = songRepository;
+        this.catalogVersionCounterRepository = catalogVersionCounterRepository;
+        this.songMapper = songMapper;
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    // Page servie seulement pour la taille par défaut et si l'instantané correspond à la version courante (celle de l'ETag).
+    public Optional<Page> page(String cursor, Integer limit) {
+        Snapshot current = snapshot;
+        if(current == null || current.version() != catalogVersion.current() || (limit != null && limit != pageSize)) {
+            return Optional.empty();
+        }
+
+        long afterId = 0;
+        if(cursor != null) {
+            Optional<Long> lastSongId = SongCursor.decode(cursor);
+            if(lastSongId.isEmpty()) {
+                return Optional.empty();
+            }
+            afterId = lastSongId.get();
+        }
+
+        List<SnapshotPage> pages = current.pages();
+        for (int i = 0; i < pages.size(); i++) {
+            SnapshotPage page = pages.get(i);
+            if(page.afterId() == afterId) {
+                boolean hasNext = page.encodedSongs().size() == pageSize && (i < pages.size() - 1 || current.hasMore());
+                return Optional.of(new Page(page.json(), page.gzip(), hasNext ? SongCursor.encode(page.lastSongId()) : null));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onSongCreated(SongCreatedEvent songCreatedEvent) {
+        Snapshot current = snapshot;
+        if(current == null) {
+            return;
+        }
+        if(songCreatedEvent.catalogVersion() <= current.version()) {
+            return;
+        }
+        SongSummary song = songCreatedEvent.song();
+        // Seule la modification suivante, avec un id après la dernière chanson, s'ajoute en fin de pages ;
+        // une version sautée ou un id plus petit (commit dans le désordre) impose une reconstruction complète.
+        if(songCreatedEvent.catalogVersion() != current.version() + 1 || song.id() <= current.lastSongId()) {
+            snapshot = null;
+            return;
+        }
+        snapshot = append(current, List.of(song), songCreatedEvent.catalogVersion());
+    }
+
+    @Scheduled(fixedDelayString = "${application.catalog.version.refresh-delay:5000}")
+    public synchronized void refresh() {
+        if(!enabled) {
+            return;
+        }
+        Snapshot current = snapshot;
+        try {
+            if(current == null || current.version() < catalogVersion.current()) {
+                snapshot = build();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to refresh the catalog snapshot", e);
+        }
+    }
+
+    // Version lue avant les chansons : une création concurrente la fait seulement paraître en retard, reconstruite au passage suivant.
+    private Snapshot build() {
+        long version = catalogVersionCounterRepository.findVersion();
+        int capacity = maxPages * pageSize;
+        List<SongSummary> songs = songRepository.findPageAfter(0, PageRequest.of(0, capacity + 1));
+        boolean hasMore = songs.size() > capacity;
+        Snapshot empty = new Snapshot(version, List.of(), false);
+        Snapshot built = append(empty, hasMore ? songs.subList(0, capacity) : songs, version);
+        return new Snapshot(built.version(), built.pages(), hasMore);
+    }
+
+    // Complète la dernière page puis ouvre les suivantes ; les pages déjà pleines sont reprises telles quelles.
+    private Snapshot append(Snapshot current, List<SongSummary> songs, long version) {
+        List<SnapshotPage> pages = new ArrayList<>(current.pages());
+        int capacity = maxPages * pageSize;
+        int songCount = songCount(current);
+        int next = 0;
+        while (next < songs.size() && songCount < capacity) {
+            SnapshotPage lastPage = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+            List<byte[]> encodedSongs;
+            long afterId;
+            if(lastPage != null && lastPage.encodedSongs().size() < pageSize) {
+                pages.remove(pages.size() - 1);
+                encodedSongs = new ArrayList<>(lastPage.encodedSongs());
+                afterId = lastPage.afterId();
+            } else {
+                encodedSongs = new ArrayList<>(pageSize);
+                afterId = lastPage == null ? 0 : lastPage.lastSongId();
+            }
+
+            long lastSongId = afterId;
+            while (next < songs.size() && encodedSongs.size() < pageSize && songCount < capacity) {
+                SongSummary song = songs.get(next++);
+                encodedSongs.add(encode(song));
+                lastSongId = song.id();
+                songCount++;
+            }
+            byte[] json = assemble(encodedSongs);
+            pages.add(new SnapshotPage(afterId, lastSongId, List.copyOf(encodedSongs), json, gzip(json)));
+        }
+        boolean hasMore = current.hasMore() || next < songs.size();
+        return new Snapshot(version, List.copyOf(pages), hasMore);
+    }
+
+    private int songCount(Snapshot current) {
+        return current.pages().stream().mapToInt(page -> page.encodedSongs().size()).sum();
+    }
+
+    // Même représentation que la réponse de SongResource pour un anonyme : favori toujours faux.
+    private byte[] encode(SongSummary song) {
+        try {
+            return objectMapper.writeValueAsBytes(songMapper.songSummaryToReadSongInfoDTO(song));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to encode song " + song.id(), e);
+        }
+    }
+
+    private static byte[] assemble(List<byte[]> encodedSongs) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('[');
+        for (int i = 0; i < encodedSongs.size(); i++) {
+            if(i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(encodedSongs.get(i));
+        }
+        json.write(']');
+        return json.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.application.event.SongCreatedEvent;
+import fr.codecake.spotify_clone.catalogcontext.repository.CatalogVersionCounterRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version du catalogue : le compteur de modifications (table catalog_version), incrémenté dans la transaction
+ * de chaque création et après chaque lot de pochettes migrées vers le BlobStore. Contrairement aux ids, il suit l'ordre des commits : une création validée après une autre
+ * a toujours une version plus grande. Mise à jour localement après commit, et relue périodiquement en base
+ * pour prendre en compte les créations faites par les autres instances.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final CatalogVersionCounterRepository catalogVersionCounterRepository;
+
+    public CatalogVersion(CatalogVersionCounterRepository catalogVersionCounterRepository) {
+        this.catalogVersionCounterRepository = catalogVersionCounterRepository;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSongCreated(SongCreatedEvent songCreatedEvent) {
+        version.accumulateAndGet(songCreatedEvent.catalogVersion(), Math::max);
+    }
+
+    // Chargée avant que le serveur web n'accepte des requêtes : jusqu'au premier rafraîchissement planifié,
+    // une version 0 servirait des ETags et des entrées de cache communes à des catalogues différents.
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${application.catalog.version.refresh-delay:5000}")
+    public void refresh() {
+        version.accumulateAndGet(catalogVersionCounterRepository.findVersion(), Math::max);
+    }
+}
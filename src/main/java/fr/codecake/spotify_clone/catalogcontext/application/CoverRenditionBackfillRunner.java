@@ -0,0 +1,65 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Commande de rattrapage des versions réduites pour les chansons existantes :
+ * java -jar spotify-clone-back.jar --backfill-cover-renditions
+ * L'application s'arrête une fois le traitement terminé.
+ */
+@Component
+public class CoverRenditionBackfillRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverRenditionBackfillRunner.class);
+
+    private static final String BACKFILL_OPTION = "backfill-cover-renditions";
+
+    private static final int BATCH_SIZE = 100;
+
+    private final CoverRenditionService coverRenditionService;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    public CoverRenditionBackfillRunner(CoverRenditionService coverRenditionService,
+                                        ConfigurableApplicationContext applicationContext) {
+        this.coverRenditionService = coverRenditionService;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if(!args.containsOption(BACKFILL_OPTION)) {
+            return;
+        }
+
+        int generated = 0;
+        int failed = 0;
+        String lastCoverHash = "";
+        List<String> coverHashes;
+        while (!(coverHashes = coverRenditionService.findCoverHashesWithoutRenditions(lastCoverHash, BATCH_SIZE)).isEmpty()) {
+            for (String coverHash : coverHashes) {
+                try {
+                    coverRenditionService.generateRenditions(coverHash);
+                    generated++;
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    log.warn("Unable to generate renditions for cover {}", coverHash, e);
+                }
+                lastCoverHash = coverHash;
+            }
+        }
+
+        log.info("Cover renditions backfill done : {} covers processed, {} failures", generated, failed);
+        int exitCode = failed == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
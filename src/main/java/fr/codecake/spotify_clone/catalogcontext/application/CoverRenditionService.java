@@ -0,0 +1,224 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongCoverDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.event.SongCreatedEvent;
+import fr.codecake.spotify_clone.catalogcontext.domain.CoverRendition;
+import fr.codecake.spotify_clone.catalogcontext.domain.CoverRenditionId;
+import fr.codecake.spotify_clone.catalogcontext.repository.CoverRenditionRepository;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.StoredBlob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génère les versions réduites des pochettes (liste, grille, lecteur) sur un pool de threads borné.
+ * Pas de transaction au niveau de la classe : le redimensionnement ne doit pas retenir de connexion.
+ */
+@Service
+public class CoverRenditionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverRenditionService.class);
+
+    private static final String RENDITION_CONTENT_TYPE = "image/jpeg";
+
+    private final CoverRenditionRepository coverRenditionRepository;
+
+    private final BlobStore blobStore;
+
+    private final List<Integer> renditionWidths;
+
+    private final long maxPixels;
+
+    private final ThreadPoolExecutor renditionExecutor;
+
+    // Pochettes déjà en file : des chansons créées à la suite avec la même pochette ne la réduisent qu'une fois.
+    private final Set<String> pendingCoverHashes = ConcurrentHashMap.newKeySet();
+
+    public CoverRenditionService(CoverRenditionRepository coverRenditionRepository,
+                                 BlobStore blobStore,
+                                 @Value("${application.cover.renditions.widths:64,300,640}") List<Integer> renditionWidths,
+                                 @Value("${application.cover.renditions.pool-size:2}") int poolSize,
+                                 @Value("${application.cover.renditions.queue-capacity:500}") int queueCapacity,
+                                 @Value("${application.cover.renditions.max-pixels:25000000}") long maxPixels) {
+        this.coverRenditionRepository = coverRenditionRepository;
+        this.blobStore = blobStore;
+        this.renditionWidths = renditionWidths.stream().sorted().toList();
+        this.maxPixels = maxPixels;
+        // File bornée : en cas de saturation la tâche est abandonnée (voir onSongCreated), la commande de backfill la rattrapera.
+        this.renditionExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("cover-rendition-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSongCreated(SongCreatedEvent songCreatedEvent) {
+        String coverHash = songCreatedEvent.song().coverHash();
+        if(!pendingCoverHashes.add(coverHash)) {
+            return;
+        }
+        try {
+            renditionExecutor.execute(() -> {
+                try {
+                    generateRenditions(coverHash);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Unable to generate renditions for cover {}", coverHash, e);
+                } finally {
+                    pendingCoverHashes.remove(coverHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingCoverHashes.remove(coverHash);
+            log.warn("Cover rendition queue is full, task dropped");
+        }
+    }
+
+    public void generateRenditions(String coverHash) throws IOException {
+        if(coverRenditionRepository.existsByCoverHash(coverHash)) {
+            return;
+        }
+
+        BufferedImage original = decode(coverHash, blobStore.read(coverHash));
+        List<CoverRendition> renditions = new ArrayList<>();
+        for (Integer width : renditionWidths) {
+            // Format non décodable par ImageIO, image trop grande ou original déjà assez petit : on sert l'original.
+            if(original == null || width >= original.getWidth()) {
+                renditions.add(rendition(coverHash, width, coverHash, null));
+            } else {
+                StoredBlob storedRendition = blobStore.put(new ByteArrayInputStream(toJpeg(scale(original, width))));
+                renditions.add(rendition(coverHash, width, storedRendition.hash(), RENDITION_CONTENT_TYPE));
+            }
+        }
+        try {
+            coverRenditionRepository.saveAll(renditions);
+        } catch (DataIntegrityViolationException e) {
+            // Générées en même temps par une autre instance ou par le backfill : même contenu, mêmes hashs.
+            log.debug("Renditions of cover {} already stored", coverHash);
+        }
+    }
+
+    public List<String> findCoverHashesWithoutRenditions(String afterCoverHash, int limit) {
+        return coverRenditionRepository.findCoverHashesWithoutRenditions(afterCoverHash, limit);
+    }
+
+    // Plus petite largeur configurée couvrant la taille demandée ; null pour l'original.
+    public Integer renditionWidthFor(Integer requestedSize) {
+        if(requestedSize == null) {
+            return null;
+        }
+        return renditionWidths.stream()
+                .filter(width -> width >= requestedSize)
+                .findFirst()
+                .orElse(null);
+    }
+
+    public SongCoverDTO resolve(Long songId, String coverHash, String coverContentType, Integer requestedSize) {
+        Integer width = renditionWidthFor(requestedSize);
+        if(coverHash == null || width == null) {
+            return new SongCoverDTO(songId, coverHash, coverHash, coverContentType, null, true);
+        }
+
+        Optional<CoverRendition> rendition = coverRenditionRepository.findById(new CoverRenditionId(coverHash, width));
+        if(rendition.isEmpty()) {
+            // Réduction pas encore générée : l'original est servi sans être mis en cache durablement.
+            return new SongCoverDTO(songId, coverHash, coverHash, coverContentType, null, false);
+        }
+
+        String contentType = rendition.get().getRenditionHash().equals(coverHash)
+                ? coverContentType
+                : rendition.get().getContentType();
+        return new SongCoverDTO(songId, coverHash, rendition.get().getRenditionHash(), contentType, width, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renditionExecutor.shutdown();
+    }
+
+    private CoverRendition rendition(String coverHash, Integer width, String renditionHash, String contentType) {
+        CoverRendition coverRendition = new CoverRendition();
+        coverRendition.setCoverHash(coverHash);
+        coverRendition.setWidth(width);
+        coverRendition.setRenditionHash(renditionHash);
+        coverRendition.setContentType(contentType == null ? "application/octet-stream" : contentType);
+        return coverRendition;
+    }
+
+    // Dimensions lues dans l'en-tête avant de décoder : une petite image compressée peut annoncer des milliards de pixels.
+    private BufferedImage decode(String coverHash, byte[] cover) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(cover))) {
+            Iterator<ImageReader> readers = imageInputStream == null ? null : ImageIO.getImageReaders(imageInputStream);
+            if(readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if(pixels > maxPixels) {
+                    log.warn("Cover {} is {}x{}, above {} pixels: no rendition generated", coverHash,
+                            reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Réduction par paliers successifs de moitié : bien meilleure qualité qu'un seul redimensionnement bilinéaire.
+    private BufferedImage scale(BufferedImage original, int targetWidth) {
+        int targetHeight = Math.max(1, (int) Math.round(original.getHeight() * (double) targetWidth / original.getWidth()));
+        BufferedImage current = original;
+        int width = original.getWidth();
+        int height = original.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,33 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+
+/**
+ * Expiration comptée depuis le chargement en base : les mises à jour en place (événements locaux) ne la repoussent pas,
+ * une modification faite sur une autre instance est donc visible au plus tard après ce délai.
+ */
+class ExpireAfterLoad<K, V> implements Expiry<K, V> {
+
+    private final long timeToLiveNanos;
+
+    ExpireAfterLoad(Duration timeToLive) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return timeToLiveNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
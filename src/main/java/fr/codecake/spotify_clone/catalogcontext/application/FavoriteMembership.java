@@ -0,0 +1,60 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Ensemble des chansons favorites d'un utilisateur sous forme de bitmap indexé par song.id.
+ * Immuable : un like / unlike produit une nouvelle instance, les lecteurs concurrents ne voient jamais de modification.
+ */
+public final class FavoriteMembership {
+
+    public static final FavoriteMembership EMPTY = new FavoriteMembership(new BitSet());
+
+    private final BitSet songIds;
+
+    // Empreinte du contenu, calculée une fois par instance : change à chaque like / unlike, sert de version aux ETags.
+    private final long fingerprint;
+
+    private FavoriteMembership(BitSet songIds) {
+        this.songIds = songIds;
+        this.fingerprint = fingerprintOf(songIds);
+    }
+
+    public static FavoriteMembership of(Collection<Long> songIds) {
+        BitSet bitSet = new BitSet();
+        songIds.forEach(songId -> bitSet.set(Math.toIntExact(songId)));
+        return new FavoriteMembership(bitSet);
+    }
+
+    public boolean contains(long songId) {
+        return songId >= 0 && songId <= Integer.MAX_VALUE && songIds.get((int) songId);
+    }
+
+    public FavoriteMembership with(long songId, boolean favorite) {
+        if(contains(songId) == favorite) {
+            return this;
+        }
+        BitSet copy = (BitSet) songIds.clone();
+        copy.set(Math.toIntExact(songId), favorite);
+        return new FavoriteMembership(copy);
+    }
+
+    public int sizeInBytes() {
+        return songIds.size() / Byte.SIZE;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    // FNV-1a sur les mots du bitmap : 64 bits plutôt que les 32 de BitSet.hashCode().
+    private static long fingerprintOf(BitSet songIds) {
+        long hash = 0xcbf29ce484222325L;
+        for (long word : songIds.toLongArray()) {
+            hash ^= word;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,50 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import fr.codecake.spotify_clone.catalogcontext.application.event.FavoriteChangedEvent;
+import fr.codecake.spotify_clone.catalogcontext.repository.FavoriteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Cache borné (en octets) des favoris de chaque utilisateur, chargé par une seule requête
+ * puis tenu à jour par les likes / unlikes de cette instance. Décorer une liste ne coûte plus qu'un accès au bitmap par chanson.
+ * Les likes faits sur une autre instance n'arrivent pas ici : l'entrée est rechargée time-to-live après son chargement.
+ */
+@Component
+public class FavoriteMembershipCache {
+
+    private final LoadingCache<String, FavoriteMembership> membershipsByEmail;
+
+    public FavoriteMembershipCache(FavoriteRepository favoriteRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${application.catalog.favorites.membership.max-size:32MB}") DataSize maxSize,
+                                   @Value("${application.catalog.favorites.membership.time-to-live:30s}") Duration timeToLive) {
+        this.membershipsByEmail = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String email, FavoriteMembership membership) -> membership.sizeInBytes() + email.length())
+                .expireAfter(new ExpireAfterLoad<String, FavoriteMembership>(timeToLive))
+                .recordStats()
+                .build(email -> FavoriteMembership.of(favoriteRepository.findFavoriteSongIdsByUserEmail(email)));
+        CaffeineCacheMetrics.monitor(meterRegistry, membershipsByEmail, "favoriteMembership");
+    }
+
+    public FavoriteMembership get(String email) {
+        return membershipsByEmail.get(email);
+    }
+
+    // Un chargement en cours pour le même utilisateur termine avant que la mise à jour ne s'applique.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFavoriteChanged(FavoriteChangedEvent favoriteChangedEvent) {
+        membershipsByEmail.asMap().computeIfPresent(favoriteChangedEvent.userEmail(),
+                (email, membership) -> membership.with(favoriteChangedEvent.song().id(), favoriteChangedEvent.favorite()));
+    }
+}
@@ -0,0 +1,63 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import fr.codecake.spotify_clone.catalogcontext.application.event.FavoriteChangedEvent;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liste des chansons favorites de chaque utilisateur, chargée depuis la base puis mise à jour
+ * en place à chaque like / unlike de cette instance. Les likes faits sur une autre instance n'arrivent pas ici :
+ * l'entrée est rechargée time-to-live après son chargement, quel que soit le nombre de lectures. La mémoire est bornée en octets.
+ */
+@Component
+public class FavoriteSongsCache {
+
+    private final LoadingCache<String, List<SongSummary>> favoriteSongsByEmail;
+
+    public FavoriteSongsCache(SongRepository songRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${application.catalog.favorites.songs.max-size:32MB}") DataSize maxSize,
+                              @Value("${application.catalog.favorites.songs.time-to-live:30s}") Duration timeToLive) {
+        this.favoriteSongsByEmail = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String email, List<SongSummary> songs) -> CatalogReadCache.weightOf(songs) + email.length())
+                .expireAfter(new ExpireAfterLoad<String, List<SongSummary>>(timeToLive))
+                .recordStats()
+                .build(email -> List.copyOf(songRepository.findAllFavoriteByUserEmail(email)));
+        CaffeineCacheMetrics.monitor(meterRegistry, favoriteSongsByEmail, "favoriteSongs");
+    }
+
+    public List<SongSummary> get(String email) {
+        return favoriteSongsByEmail.get(email);
+    }
+
+    // Exécuté dans le thread de la requête avant la réponse : l'utilisateur relit toujours son propre like.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFavoriteChanged(FavoriteChangedEvent favoriteChangedEvent) {
+        SongSummary changedSong = favoriteChangedEvent.song();
+        favoriteSongsByEmail.asMap().computeIfPresent(favoriteChangedEvent.userEmail(), (email, songs) -> {
+            List<SongSummary> favoriteSongs = new ArrayList<>(songs);
+            boolean alreadyFavorite = favoriteSongs.removeIf(song -> song.id().equals(changedSong.id()));
+            if(favoriteChangedEvent.favorite()) {
+                if(alreadyFavorite) {
+                    return songs;
+                }
+                favoriteSongs.add(changedSong);
+            }
+            return List.copyOf(favoriteSongs);
+        });
+    }
+}
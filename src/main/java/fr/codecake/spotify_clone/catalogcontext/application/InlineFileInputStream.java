@@ -0,0 +1,70 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.SongContentRepository;
+
+import java.io.InputStream;
+
+// Fichier encore stocké dans song_content.file, lu fenêtre par fenêtre : une seule fenêtre en mémoire à la fois.
+class InlineFileInputStream extends InputStream {
+
+    private final SongContentRepository songContentRepository;
+
+    private final Long songId;
+
+    private final long length;
+
+    private final int windowSize;
+
+    private long position;
+
+    private byte[] window = new byte[0];
+
+    private int windowOffset;
+
+    InlineFileInputStream(SongContentRepository songContentRepository, Long songId, long length, int windowSize) {
+        this.songContentRepository = songContentRepository;
+        this.songId = songId;
+        this.length = length;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() {
+        if(!fillWindow()) {
+            return -1;
+        }
+        return window[windowOffset++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if(len == 0) {
+            return 0;
+        }
+        if(!fillWindow()) {
+            return -1;
+        }
+        int read = Math.min(len, window.length - windowOffset);
+        System.arraycopy(window, windowOffset, b, off, read);
+        windowOffset += read;
+        return read;
+    }
+
+    private boolean fillWindow() {
+        if(windowOffset < window.length) {
+            return true;
+        }
+        if(position >= length) {
+            return false;
+        }
+        int sliceLength = (int) Math.min(windowSize, length - position);
+        byte[] slice = songContentRepository.findFileSlice(songId, Math.toIntExact(position + 1), sliceLength);
+        if(slice == null || slice.length == 0) {
+            return false;
+        }
+        window = slice;
+        windowOffset = 0;
+        position += slice.length;
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Déplace en tâche de fond les pochettes et fichiers audio encore stockés en LOB vers le BlobStore,
+ * puis découpe en blocs les fichiers audio stockés en un seul blob.
+ * Chaque ligne est migrée dans sa propre transaction ; une ligne en erreur est retentée au passage suivant.
+ */
+@Component
+@ConditionalOnProperty(name = "application.storage.migration.enabled", havingValue = "true", matchIfMissing = true)
+public class SongBlobMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SongBlobMigrationJob.class);
+
+    private final SongBlobMigrationService songBlobMigrationService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final int batchSize;
+
+    public SongBlobMigrationJob(SongBlobMigrationService songBlobMigrationService,
+                                CatalogVersion catalogVersion,
+                                @Value("${application.storage.migration.batch-size:50}") int batchSize) {
+        this.songBlobMigrationService = songBlobMigrationService;
+        this.catalogVersion = catalogVersion;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${application.storage.migration.initial-delay:30000}",
+            fixedDelayString = "${application.storage.migration.fixed-delay:300000}")
+    public void migrateInlineBlobs() {
+        int migratedCovers = 0;
+        long lastSongId = 0;
+        List<Long> songIds;
+        while (!(songIds = songBlobMigrationService.findSongIdsWithInlineCover(lastSongId, batchSize)).isEmpty()) {
+            int migratedBatchCovers = 0;
+            for (Long songId : songIds) {
+                try {
+                    if(songBlobMigrationService.migrateCover(songId)) {
+                        migratedBatchCovers++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Unable to migrate cover of song {} to the blob store", songId, e);
+                }
+                lastSongId = songId;
+            }
+            // Une version par lot, après les commits du lot : une lecture mise en cache entre-temps l'est sous l'ancienne version.
+            if(migratedBatchCovers > 0) {
+                songBlobMigrationService.incrementCatalogVersion();
+                catalogVersion.refresh();
+                migratedCovers += migratedBatchCovers;
+            }
+        }
+
+        int migratedFiles = 0;
+        lastSongId = 0;
+        while (!(songIds = songBlobMigrationService.findSongIdsWithInlineFile(lastSongId, batchSize)).isEmpty()) {
+            for (Long songId : songIds) {
+                try {
+                    if(songBlobMigrationService.migrateFile(songId)) {
+                        migratedFiles++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Unable to migrate audio file of song {} to the blob store", songId, e);
+                }
+                lastSongId = songId;
+            }
+        }
+
+        int chunkedFiles = 0;
+        lastSongId = 0;
+        while (!(songIds = songBlobMigrationService.findSongIdsWithUnchunkedFile(lastSongId, batchSize)).isEmpty()) {
+            for (Long songId : songIds) {
+                try {
+                    if(songBlobMigrationService.chunkFile(songId)) {
+                        chunkedFiles++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Unable to split audio file of song {} into chunks", songId, e);
+                }
+                lastSongId = songId;
+            }
+        }
+
+        if(migratedCovers > 0 || migratedFiles > 0 || chunkedFiles > 0) {
+            log.info("Moved {} covers and {} audio files to the blob store, split {} audio files into chunks",
+                    migratedCovers, migratedFiles, chunkedFiles);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.SongContent;
+import fr.codecake.spotify_clone.catalogcontext.repository.CatalogVersionCounterRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongChunkRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongContentRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.ChunkedBlob;
+import fr.codecake.spotify_clone.infrastucture.storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Transactional
+public class SongBlobMigrationService {
+
+    private final SongRepository songRepository;
+
+    private final SongContentRepository songContentRepository;
+
+    private final SongChunkRepository songChunkRepository;
+
+    private final BlobStore blobStore;
+
+    private final BlobRefService blobRefService;
+
+    private final CatalogVersionCounterRepository catalogVersionCounterRepository;
+
+    private final int chunkSize;
+
+    public SongBlobMigrationService(SongRepository songRepository,
+                                    SongContentRepository songContentRepository,
+                                    SongChunkRepository songChunkRepository,
+                                    BlobStore blobStore,
+                                    BlobRefService blobRefService,
+                                    CatalogVersionCounterRepository catalogVersionCounterRepository,
+                                    @Value("${application.storage.chunk-size:1MB}") DataSize chunkSize) {
+        this.songRepository = songRepository;
+        this.songContentRepository = songContentRepository;
+        this.songChunkRepository = songChunkRepository;
+        this.blobStore = blobStore;
+        this.blobRefService = blobRefService;
+        this.catalogVersionCounterRepository = catalogVersionCounterRepository;
+        this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findSongIdsWithInlineCover(long afterSongId, int limit) {
+        return songRepository.findIdsWithInlineCover(afterSongId, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findSongIdsWithInlineFile(long afterSongId, int limit) {
+        return songContentRepository.findSongIdsWithInlineFile(afterSongId, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findSongIdsWithUnchunkedFile(long afterSongId, int limit) {
+        return songContentRepository.findSongIdsWithUnchunkedFile(afterSongId, limit);
+    }
+
+    public boolean migrateCover(Long songId) throws IOException {
+        byte[] cover = songRepository.findInlineCover(songId);
+        if(cover == null) {
+            return false;
+        }
+        StoredBlob storedCover = blobStore.put(new ByteArrayInputStream(cover));
+        if(songRepository.moveCoverToBlobStore(songId, storedCover.hash()) != 1) {
+            return false;
+        }
+        blobRefService.retain(storedCover.hash(), storedCover.size());
+        return true;
+    }
+
+    // Une pochette migrée change le cover_hash des SongSummary : les pages, recherches et ETags en cache,
+    // indexés par version du catalogue, doivent être invalidés sur toutes les instances.
+    public void incrementCatalogVersion() {
+        catalogVersionCounterRepository.increment(1);
+    }
+
+    // Le LOB est relu par fenêtres de chunkSize : un fichier de plusieurs centaines de Mo ne passe jamais entier en mémoire.
+    public boolean migrateFile(Long songId) throws IOException {
+        Long fileLength = songContentRepository.findInlineFileLength(songId);
+        if(fileLength == null) {
+            return false;
+        }
+        StoredBlob storedFile;
+        try (InputStream file = new InlineFileInputStream(songContentRepository, songId, fileLength, chunkSize)) {
+            storedFile = blobStore.put(file);
+        }
+        if(songContentRepository.moveFileToBlobStore(songId, storedFile.hash(), storedFile.size()) != 1) {
+            return false;
+        }
+        blobRefService.retain(storedFile.hash(), storedFile.size());
+        return true;
+    }
+
+    // La chanson ne référence plus le blob d'origine, ses blocs prennent le relais dans le comptage.
+    // Le blob reste lisible tant qu'une autre chanson le référence ; à 0, BlobGarbageCollector le supprime.
+    public boolean chunkFile(Long songId) throws IOException {
+        Optional<SongContent> songContentOpt = songContentRepository.findById(songId);
+        if(songContentOpt.isEmpty() || songContentOpt.get().getFileHash() == null || songContentOpt.get().getFileChunkSize() != null) {
+            return false;
+        }
+
+        String fileHash = songContentOpt.get().getFileHash();
+        ChunkedBlob chunkedFile;
+        try (InputStream file = blobStore.open(fileHash)) {
+            chunkedFile = blobStore.putChunked(file, chunkSize);
+        }
+        if(!chunkedFile.hash().equals(fileHash)) {
+            throw new IOException("Blob " + fileHash + " does not match its hash, chunking aborted");
+        }
+        if(songContentRepository.markFileChunked(songId, fileHash, chunkSize) != 1) {
+            return false;
+        }
+        songChunkRepository.insertManifest(songId, chunkedFile.chunkHashes());
+        blobRefService.retainChunks(chunkedFile.chunkHashes(), chunkSize, chunkedFile.size());
+        blobRefService.release(fileHash);
+        return true;
+    }
+}
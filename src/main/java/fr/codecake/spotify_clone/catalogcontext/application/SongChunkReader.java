@@ -0,0 +1,138 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.SongChunkRepository;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relit une plage d'un fichier audio découpé en ne chargeant que les blocs qui la couvrent.
+ * Avec parallelism = 1 (stockage local), chaque bloc est copié sans tampon par transferTo ;
+ * au-delà (stockage distant), jusqu'à parallelism blocs sont lus d'avance pendant l'écriture des précédents.
+ */
+@Component
+public class SongChunkReader {
+
+    private final SongChunkRepository songChunkRepository;
+
+    private final BlobStore blobStore;
+
+    private final int parallelism;
+
+    private final ThreadPoolExecutor chunkFetchExecutor;
+
+    public SongChunkReader(SongChunkRepository songChunkRepository,
+                           BlobStore blobStore,
+                           @Value("${application.storage.chunk-fetch.parallelism:1}") int parallelism,
+                           @Value("${application.storage.chunk-fetch.pool-size:16}") int poolSize) {
+        this.songChunkRepository = songChunkRepository;
+        this.blobStore = blobStore;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkFetchExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("song-chunk-fetch-"));
+        this.chunkFetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public void writeRange(Long songId, int chunkSize, long start, long length, OutputStream outputStream) throws IOException {
+        if(length <= 0) {
+            return;
+        }
+        int firstSeq = Math.toIntExact(start / chunkSize);
+        int lastSeq = Math.toIntExact((start + length - 1) / chunkSize);
+        List<String> chunkHashes = songChunkRepository.findChunkHashes(songId, firstSeq, lastSeq);
+        if(chunkHashes.size() != lastSeq - firstSeq + 1) {
+            throw new IOException("Chunk manifest of song " + songId + " is incomplete");
+        }
+
+        // Seuls le premier et le dernier bloc sont lus partiellement.
+        long offsetInChunk = start - (long) firstSeq * chunkSize;
+        if(parallelism == 1) {
+            writeSequentially(chunkHashes, chunkSize, offsetInChunk, length, outputStream);
+        } else {
+            writeWithPrefetch(chunkHashes, chunkSize, offsetInChunk, length, outputStream);
+        }
+    }
+
+    private void writeSequentially(List<String> chunkHashes, int chunkSize, long offsetInChunk, long length,
+                                   OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long remaining = length;
+        long position = offsetInChunk;
+        for (String chunkHash : chunkHashes) {
+            long count = Math.min(chunkSize - position, remaining);
+            blobStore.transferTo(chunkHash, position, count, target);
+            remaining -= count;
+            position = 0;
+        }
+    }
+
+    // Fenêtre glissante : la mémoire retenue est bornée à parallelism blocs par lecture en cours.
+    private void writeWithPrefetch(List<String> chunkHashes, int chunkSize, long offsetInChunk, long length,
+                                   OutputStream outputStream) throws IOException {
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(parallelism);
+        int nextToFetch = 0;
+        long remaining = length;
+        long position = offsetInChunk;
+        try {
+            for (int seq = 0; seq < chunkHashes.size(); seq++) {
+                while (nextToFetch < chunkHashes.size() && window.size() < parallelism) {
+                    window.addLast(fetch(chunkHashes.get(nextToFetch++)));
+                }
+                byte[] chunk = await(window.removeFirst());
+                int count = (int) Math.min(Math.min(chunkSize, chunk.length) - position, remaining);
+                outputStream.write(chunk, (int) position, count);
+                remaining -= count;
+                position = 0;
+            }
+        } finally {
+            // Client parti en cours de route : les lectures anticipées restantes sont abandonnées.
+            window.forEach(pending -> pending.cancel(false));
+        }
+    }
+
+    private CompletableFuture<byte[]> fetch(String chunkHash) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return blobStore.read(chunkHash);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read chunk " + chunkHash, e);
+            }
+        }, chunkFetchExecutor);
+    }
+
+    private byte[] await(CompletableFuture<byte[]> pending) throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching an audio chunk");
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            throw new IOException("Unable to fetch an audio chunk", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkFetchExecutor.shutdown();
+    }
+}
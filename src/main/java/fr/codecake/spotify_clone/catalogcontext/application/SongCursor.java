@@ -0,0 +1,34 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Curseur opaque de pagination par clé (keyset) : encode le dernier song.id renvoyé.
+ * Le client ne doit pas interpréter sa valeur, ce qui permet d'en changer le contenu plus tard.
+ */
+public final class SongCursor {
+
+    private static final String PREFIX = "song:";
+
+    private SongCursor() {
+    }
+
+    public static String encode(long lastSongId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastSongId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static Optional<Long> decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if(!decoded.startsWith(PREFIX)) {
+                return Optional.empty();
+            }
+            return Optional.of(Long.parseLong(decoded.substring(PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
+import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export du catalogue complet en NDJSON (une chanson JSON par ligne).
+ * Les chansons sont lues par un curseur JDBC et détachées une à une : la mémoire reste constante
+ * quelle que soit la taille du catalogue.
+ */
+@Service
+public class SongExportService {
+
+    private final SongRepository songRepository;
+
+    private final SongMapper songMapper;
+
+    private final ObjectWriter ndjsonWriter;
+
+    private final int flushInterval;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SongExportService(SongRepository songRepository,
+                             SongMapper songMapper,
+                             ObjectMapper objectMapper,
+                             @Value("${application.catalog.export.flush-interval:200}") int flushInterval) {
+        this.songRepository = songRepository;
+        this.songMapper = songMapper;
+        this.ndjsonWriter = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushInterval = flushInterval;
+    }
+
+    /*
+     Le flush n'a lieu que toutes les flushInterval lignes. Quand le client lit lentement, l'écriture
+     sur le flux de la réponse bloque : la lecture du curseur est suspendue d'autant (contre-pression),
+     sans accumuler de lignes en mémoire.
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<Song> songs = songRepository.streamAllOrderById();
+             SequenceWriter sequenceWriter = ndjsonWriter.writeValues(outputStream)) {
+            Iterator<Song> iterator = songs.iterator();
+            while (iterator.hasNext()) {
+                Song song = iterator.next();
+                sequenceWriter.write(songMapper.songToReadSongInfoDTO(song));
+                entityManager.detach(song);
+                if(++exported % flushInterval == 0) {
+                    sequenceWriter.flush();
+                }
+            }
+            // Le séparateur n'est écrit qu'entre deux valeurs : la dernière ligne est terminée ici.
+            sequenceWriter.flush();
+            if(exported > 0) {
+                outputStream.write('\n');
+            }
+        }
+        return exported;
+    }
+}
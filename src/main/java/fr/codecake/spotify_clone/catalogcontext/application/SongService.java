@@ -1,36 +1,65 @@
 package fr.codecake.spotify_clone.catalogcontext.application;
 
 import fr.codecake.spotify_clone.catalogcontext.application.dto.FavoriteSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.FavoriteSongResultDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.SaveSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongAudioInfoDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.SongContentDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongCoverDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongPageDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.event.FavoriteChangedEvent;
+import fr.codecake.spotify_clone.catalogcontext.application.event.SongCreatedEvent;
 import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongContentMapper;
 import fr.codecake.spotify_clone.catalogcontext.application.mapper.SongMapper;
 import fr.codecake.spotify_clone.catalogcontext.domain.Favorite;
 import fr.codecake.spotify_clone.catalogcontext.domain.FavoriteId;
 import fr.codecake.spotify_clone.catalogcontext.domain.Song;
 import fr.codecake.spotify_clone.catalogcontext.domain.SongContent;
+import fr.codecake.spotify_clone.catalogcontext.repository.CatalogVersionCounterRepository;
 import fr.codecake.spotify_clone.catalogcontext.repository.FavoriteRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongChunkRepository;
 import fr.codecake.spotify_clone.catalogcontext.repository.SongContentRepository;
 import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
 
 import fr.codecake.spotify_clone.infrastucture.service.dto.State;
 import fr.codecake.spotify_clone.infrastucture.service.dto.StateBuilder;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
 import fr.codecake.spotify_clone.usercontext.ReadUserDTO;
 import fr.codecake.spotify_clone.usercontext.application.UserService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Service
 @Transactional
+@Timed(value = "application.service", histogram = true)
 public class SongService {
 
+    private static final int INLINE_AUDIO_CHUNK_SIZE = 256 * 1024;
+
     private final SongMapper songMapper;
 
     private final SongRepository songRepository;
@@ -38,22 +67,76 @@ public class SongService {
     private final SongContentRepository songContentRepository;
 
     private final SongContentMapper songContentMapper;
+    private final SongChunkRepository songChunkRepository;
+    private final SongChunkReader songChunkReader;
+    private final BlobRefService blobRefService;
+    private final CatalogVersionCounterRepository catalogVersionCounterRepository;
     private final UserService userService;
     private final FavoriteRepository favoriteRepository;
+    private final BlobStore blobStore;
+    private final CoverRenditionService coverRenditionService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final SongSuggestIndex songSuggestIndex;
+    private final FavoriteMembershipCache favoriteMembershipCache;
+    private final CatalogReadCache catalogReadCache;
+    private final FavoriteSongsCache favoriteSongsCache;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int defaultSearchLimit;
+    private final int maxSearchLimit;
+    private final int defaultSuggestLimit;
+    private final int maxSuggestLimit;
+    private final int maxFavoriteBatchSize;
 
     public SongService(
             SongMapper songMapper,
             SongRepository songRepository,
             SongContentRepository songContentRepository,
             SongContentMapper songContentMapper,
+            SongChunkRepository songChunkRepository,
+            SongChunkReader songChunkReader,
+            BlobRefService blobRefService,
+            CatalogVersionCounterRepository catalogVersionCounterRepository,
             UserService userService,
-            FavoriteRepository favoriteRepository) {
+            FavoriteRepository favoriteRepository,
+            BlobStore blobStore,
+            CoverRenditionService coverRenditionService,
+            ApplicationEventPublisher applicationEventPublisher,
+            SongSuggestIndex songSuggestIndex,
+            FavoriteMembershipCache favoriteMembershipCache,
+            CatalogReadCache catalogReadCache,
+            FavoriteSongsCache favoriteSongsCache,
+            @Value("${application.catalog.page.default-size:50}") int defaultPageSize,
+            @Value("${application.catalog.page.max-size:200}") int maxPageSize,
+            @Value("${application.catalog.search.default-limit:20}") int defaultSearchLimit,
+            @Value("${application.catalog.search.max-limit:100}") int maxSearchLimit,
+            @Value("${application.catalog.suggest.default-limit:10}") int defaultSuggestLimit,
+            @Value("${application.catalog.suggest.max-limit:50}") int maxSuggestLimit,
+            @Value("${application.catalog.favorites.batch.max-size:500}") int maxFavoriteBatchSize) {
         this.songMapper = songMapper;
         this.songRepository = songRepository;
         this.songContentRepository = songContentRepository;
         this.songContentMapper = songContentMapper;
+        this.songChunkRepository = songChunkRepository;
+        this.songChunkReader = songChunkReader;
+        this.blobRefService = blobRefService;
+        this.catalogVersionCounterRepository = catalogVersionCounterRepository;
         this.userService = userService;
         this.favoriteRepository = favoriteRepository;
+        this.blobStore = blobStore;
+        this.coverRenditionService = coverRenditionService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.songSuggestIndex = songSuggestIndex;
+        this.favoriteMembershipCache = favoriteMembershipCache;
+        this.catalogReadCache = catalogReadCache;
+        this.favoriteSongsCache = favoriteSongsCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.defaultSearchLimit = defaultSearchLimit;
+        this.maxSearchLimit = maxSearchLimit;
+        this.defaultSuggestLimit = defaultSuggestLimit;
+        this.maxSuggestLimit = maxSuggestLimit;
+        this.maxFavoriteBatchSize = maxFavoriteBatchSize;
     }
 
     public ReadSongInfoDTO create(SaveSongDTO saveSongDTO) {
@@ -63,8 +146,40 @@ public class SongService {
         SongContent songContent = songContentMapper.saveSongDTOToSongContent(saveSongDTO);
         songContent.setSong(savedSong);
 
-        songContentRepository.save(songContent);                     
-        return songMapper.songToReadSongInfoDTO(savedSong);          
+        songContentRepository.save(songContent);
+        songChunkRepository.insertManifest(savedSong.getId(), saveSongDTO.fileChunkHashes());
+        blobRefService.retainSongs(List.of(saveSongDTO));
+        long catalogVersion = incrementCatalogVersion(1);
+        applicationEventPublisher.publishEvent(new SongCreatedEvent(songMapper.songToSongSummary(savedSong), catalogVersion));
+        return songMapper.songToReadSongInfoDTO(savedSong);
+    }
+
+    // Import groupé : identifiants alloués par blocs (séquence pooled), INSERT envoyés en lots JDBC au flush.
+    public int createAll(List<SaveSongDTO> saveSongDTOs) {
+        List<Song> savedSongs = songRepository.saveAll(saveSongDTOs.stream().map(songMapper::saveSongDTOToSong).toList());
+
+        List<SongContent> songContents = new ArrayList<>(saveSongDTOs.size());
+        for (int i = 0; i < saveSongDTOs.size(); i++) {
+            SongContent songContent = songContentMapper.saveSongDTOToSongContent(saveSongDTOs.get(i));
+            songContent.setSong(savedSongs.get(i));
+            songContents.add(songContent);
+            songChunkRepository.insertManifest(savedSongs.get(i).getId(), saveSongDTOs.get(i).fileChunkHashes());
+        }
+        songContentRepository.saveAll(songContents);
+        blobRefService.retainSongs(saveSongDTOs);
+
+        // Une version par chanson, dans l'ordre du lot : les abonnés voient une suite sans trou.
+        long firstCatalogVersion = incrementCatalogVersion(savedSongs.size()) - savedSongs.size() + 1;
+        for (int i = 0; i < savedSongs.size(); i++) {
+            applicationEventPublisher.publishEvent(new SongCreatedEvent(songMapper.songToSongSummary(savedSongs.get(i)), firstCatalogVersion + i));
+        }
+        return savedSongs.size();
+    }
+
+    // En dernier dans la transaction : la ligne du compteur reste verrouillée jusqu'au commit, le moins longtemps possible.
+    private long incrementCatalogVersion(int createdSongs) {
+        catalogVersionCounterRepository.increment(createdSongs);
+        return catalogVersionCounterRepository.findVersion();
     }
 
     /*
@@ -89,36 +204,113 @@ public class SongService {
         L'objet Song persistant est mappé à un ReadSongInfoDTO et retourné.
      */
 
-    @Transactional(readOnly = true)
-    public List<ReadSongInfoDTO> getAll() {
-        List<ReadSongInfoDTO> allSongs = songRepository.findAll()
-                .stream()
-                .map(songMapper::songToReadSongInfoDTO)
-                .toList();
-
-        if(userService.isAuthenticated()) {
-            return fetchFavoritesStatusForSongs(allSongs);
+    // Servi depuis le cache du catalogue : aucune connexion n'est prise quand la page y est déjà.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public State<SongPageDTO, String> getAll(String cursor, Integer limit) {
+        StateBuilder<SongPageDTO, String> builder = State.builder();
+        long afterId = 0;
+        if(cursor != null) {
+            Optional<Long> lastSongId = SongCursor.decode(cursor);
+            if(lastSongId.isEmpty()) {
+                return builder.forError("Invalid cursor").build();
+            }
+            afterId = lastSongId.get();
         }
 
-        return allSongs;
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante.
+        long pageAfterId = afterId;
+        List<SongSummary> songs = catalogReadCache.page(pageAfterId, pageSize + 1,
+                () -> songRepository.findPageAfter(pageAfterId, PageRequest.of(0, pageSize + 1)));
+        boolean hasNext = songs.size() > pageSize;
+        List<SongSummary> pageSongs = hasNext ? songs.subList(0, pageSize) : songs;
+
+        List<ReadSongInfoDTO> page = toReadSongInfoDTOsWithFavoriteStatus(pageSongs);
+        String next = hasNext ? SongCursor.encode(pageSongs.get(pageSongs.size() - 1).id()) : null;
+        return builder.forSuccess(new SongPageDTO(page, next)).build();
     }
 
+    // Fichier entier en mémoire : réservé à l'ancien endpoint get-content, la lecture passe par writeAudioRange.
+    @Transactional(readOnly = true)
     public Optional<SongContentDTO> getOneByPublicId(UUID publicId) {
         Optional<SongContent> songByPublicId = songContentRepository.findOneBySongPublicId(publicId);
 
-        return songByPublicId.map(songContentMapper::songContentToSongContentDTO);
+        return songByPublicId.map(songContent ->
+                new SongContentDTO(publicId, readSongFile(songContent), songContent.getFileContentType()));
     }
 
-    public List<ReadSongInfoDTO> search(String query) {
-        List<ReadSongInfoDTO> searchSongs = songRepository.findByTitleOrAuthorContaining(query)
-                .stream()
-                .map(songMapper::songToReadSongInfoDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Optional<SongAudioInfoDTO> getAudioInfo(UUID publicId) {
+        return songContentRepository.findAudioInfoBySongPublicId(publicId)
+                .map(audioInfo -> new SongAudioInfoDTO(
+                        audioInfo.getSongId(),
+                        publicId,
+                        audioInfo.getFileContentType(),
+                        audioInfo.getFileHash(),
+                        audioInfo.getFileChunkSize(),
+                        audioInfo.getFileLength()));
+    }
+
+    // Pas de transaction autour de l'écriture : un client lent ne doit pas bloquer une connexion du pool.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeAudioRange(SongAudioInfoDTO audioInfo, long start, long length, OutputStream outputStream) throws IOException {
+        if(audioInfo.fileChunkSize() != null) {
+            songChunkReader.writeRange(audioInfo.songId(), audioInfo.fileChunkSize(), start, length, outputStream);
+            return;
+        }
 
-        if(userService.isAuthenticated()) {
-            return fetchFavoritesStatusForSongs(searchSongs);
+        // Blob unique, pas encore découpé par SongBlobMigrationJob.
+        if(audioInfo.fileHash() != null) {
+            blobStore.transferTo(audioInfo.fileHash(), start, length, Channels.newChannel(outputStream));
+            return;
         }
-        return searchSongs;
+
+        // Ligne pas encore migrée vers le BlobStore : lecture par fenêtres directement dans le LOB.
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            int chunkLength = (int) Math.min(INLINE_AUDIO_CHUNK_SIZE, remaining);
+            byte[] chunk = songContentRepository.findFileSlice(audioInfo.songId(), Math.toIntExact(position + 1), chunkLength);
+            if(chunk == null || chunk.length == 0) {
+                break;
+            }
+            outputStream.write(chunk);
+            position += chunk.length;
+            remaining -= chunk.length;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SongCoverDTO> getCover(UUID publicId, Integer size) {
+        return songRepository.findCoverByPublicId(publicId)
+                .map(cover -> coverRenditionService.resolve(cover.getId(), cover.getCoverHash(), cover.getCoverContentType(), size));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeCover(SongCoverDTO cover, OutputStream outputStream) throws IOException {
+        if(cover.blobHash() == null) {
+            outputStream.write(songRepository.findInlineCover(cover.songId()));
+            return;
+        }
+        blobStore.transferTo(cover.blobHash(), 0, blobStore.size(cover.blobHash()), Channels.newChannel(outputStream));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ReadSongInfoDTO> search(String query, Integer limit) {
+        int resultLimit = limit == null ? defaultSearchLimit : Math.max(1, Math.min(limit, maxSearchLimit));
+        List<SongSummary> songs = catalogReadCache.search(query, resultLimit,
+                () -> songRepository.searchByTitleOrAuthor(query, resultLimit));
+        return toReadSongInfoDTOsWithFavoriteStatus(songs);
+    }
+
+    // Servi entièrement par l'index en mémoire : aucune transaction ni connexion n'est ouverte.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ReadSongInfoDTO> suggest(String prefix, Integer limit) {
+        int resultLimit = limit == null ? defaultSuggestLimit : Math.max(1, Math.min(limit, maxSuggestLimit));
+        return songSuggestIndex.suggest(prefix, resultLimit)
+                .stream()
+                .map(songMapper::songSummaryToReadSongInfoDTO)
+                .toList();
     }
 
     public State<FavoriteSongDTO, String> addOrRemoveFromFavorite(FavoriteSongDTO favoriteSongDTO, String email) {
@@ -142,41 +334,119 @@ public class SongService {
             favoriteRepository.deleteById(favoriteId);
             favoriteSongDTO = new FavoriteSongDTO(false, songToLike.getPublicId());
         }
+        applicationEventPublisher.publishEvent(new FavoriteChangedEvent(userWhoLikedSong.email(),
+                songMapper.songToSongSummary(songToLike), favoriteSongDTO.favorite()));
 
         return builder.forSuccess(favoriteSongDTO).build();
     }
 
+    /*
+     Like / unlike groupé : les chansons sont résolues en une requête, les favoris existants en une autre,
+     puis les INSERT partent en instructions multi-lignes (doublons ignorés) et les suppressions en un seul DELETE.
+     Pour une même chanson présente plusieurs fois, la dernière instruction l'emporte.
+     */
+    public State<List<FavoriteSongResultDTO>, String> addOrRemoveFromFavorites(List<FavoriteSongDTO> favoriteSongDTOs, String email) {
+        StateBuilder<List<FavoriteSongResultDTO>, String> builder = State.builder();
+        if(favoriteSongDTOs.size() > maxFavoriteBatchSize) {
+            return builder.forError("Too many songs in one batch, maximum is " + maxFavoriteBatchSize).build();
+        }
+
+        ReadUserDTO userWhoLikedSongs = userService.getByEmail(email).orElseThrow();
+
+        Map<UUID, Boolean> requestedFavorites = new LinkedHashMap<>();
+        favoriteSongDTOs.stream()
+                .filter(favoriteSongDTO -> favoriteSongDTO.publicId() != null)
+                .forEach(favoriteSongDTO -> requestedFavorites.put(favoriteSongDTO.publicId(), favoriteSongDTO.favorite()));
+
+        Map<UUID, SongSummary> songsByPublicId = requestedFavorites.isEmpty() ? Map.of()
+                : songRepository.findAllByPublicIdIn(requestedFavorites.keySet())
+                .stream()
+                .collect(Collectors.toMap(SongSummary::publicId, Function.identity()));
+        Set<UUID> currentFavorites = songsByPublicId.isEmpty() ? Set.of()
+                : new HashSet<>(favoriteRepository.findSongPublicIdsByUserEmailAndSongPublicIdIn(
+                userWhoLikedSongs.email(), songsByPublicId.keySet()));
+
+        List<Favorite> favoritesToInsert = new ArrayList<>();
+        Set<UUID> favoritesToDelete = new HashSet<>();
+        List<FavoriteChangedEvent> favoriteChanges = new ArrayList<>();
+        requestedFavorites.forEach((publicId, favorite) -> {
+            SongSummary song = songsByPublicId.get(publicId);
+            if(song == null || currentFavorites.contains(publicId) == favorite) {
+                return;
+            }
+            if(favorite) {
+                Favorite favoriteToInsert = new Favorite();
+                favoriteToInsert.setSongPublicId(publicId);
+                favoriteToInsert.setUserEmail(userWhoLikedSongs.email());
+                favoritesToInsert.add(favoriteToInsert);
+            } else {
+                favoritesToDelete.add(publicId);
+            }
+            favoriteChanges.add(new FavoriteChangedEvent(userWhoLikedSongs.email(), song, favorite));
+        });
+
+        if(!favoritesToInsert.isEmpty()) {
+            favoriteRepository.insertAll(favoritesToInsert);
+        }
+        if(!favoritesToDelete.isEmpty()) {
+            favoriteRepository.deleteAllByUserEmailAndSongPublicIdIn(userWhoLikedSongs.email(), favoritesToDelete);
+        }
+        favoriteChanges.forEach(applicationEventPublisher::publishEvent);
+
+        List<FavoriteSongResultDTO> results = favoriteSongDTOs.stream().map(favoriteSongDTO -> {
+            if(favoriteSongDTO.publicId() == null) {
+                return new FavoriteSongResultDTO(null, favoriteSongDTO.favorite(), "Song public id is required");
+            } else if(!songsByPublicId.containsKey(favoriteSongDTO.publicId())) {
+                return new FavoriteSongResultDTO(favoriteSongDTO.publicId(), favoriteSongDTO.favorite(), "Song public id doesn't exist");
+            }
+            return new FavoriteSongResultDTO(favoriteSongDTO.publicId(), requestedFavorites.get(favoriteSongDTO.publicId()), null);
+        }).toList();
+        return builder.forSuccess(results).build();
+    }
+
+    // La jointure n'est exécutée qu'au premier appel de l'utilisateur, les likes / unlikes mettent ensuite le cache à jour.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ReadSongInfoDTO> fetchFavoriteSongs(String email) {
-        return songRepository.findAllFavoriteByUserEmail(email)
+        return favoriteSongsCache.get(email)
                 .stream()
-                .map(songMapper::songToReadSongInfoDTO)
+                .map(songMapper::songSummaryToReadSongInfoDTO)
                 .toList();
     }
 
-    private List<ReadSongInfoDTO> fetchFavoritesStatusForSongs(List<ReadSongInfoDTO> songs) {
-        ReadUserDTO authenticatedUser = userService.getAuthenticatedUserFormSecurityContext();
+    private byte[] readSongFile(SongContent songContent) {
+        if(songContent.getFileChunkSize() != null) {
+            ByteArrayOutputStream file = new ByteArrayOutputStream(Math.toIntExact(songContent.getFileSize()));
+            try {
+                songChunkReader.writeRange(songContent.getSongId(), songContent.getFileChunkSize(), 0, songContent.getFileSize(), file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read chunks of song " + songContent.getSongId(), e);
+            }
+            return file.toByteArray();
+        }
+        if(songContent.getFileHash() == null) {
+            return songContentRepository.findInlineFile(songContent.getSongId());
+        }
+        return readBlob(songContent.getFileHash());
+    }
 
-        List<UUID> songPublicIds = songs.stream().map(ReadSongInfoDTO::getPublicId).toList();
+    private byte[] readBlob(String hash) {
+        try {
+            return blobStore.read(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read blob " + hash, e);
+        }
+    }
 
-        List<UUID> userFavoriteSongs = favoriteRepository.findAllByUserEmailAndSongPublicIdIn(authenticatedUser.email(), songPublicIds)
-                .stream().map(Favorite::getSongPublicId).toList();
+    // Le statut favori est lu dans le bitmap de l'utilisateur : aucune requête supplémentaire par liste.
+    private List<ReadSongInfoDTO> toReadSongInfoDTOsWithFavoriteStatus(List<SongSummary> songs) {
+        FavoriteMembership favoriteMembership = userService.isAuthenticated()
+                ? favoriteMembershipCache.get(userService.getAuthenticatedUserFormSecurityContext().email())
+                : FavoriteMembership.EMPTY;
 
-        return songs.stream().peek(song -> {
-            if(userFavoriteSongs.contains(song.getPublicId())) {
-                song.setFavorite(true);
-            }
+        return songs.stream().map(song -> {
+            ReadSongInfoDTO readSongInfoDTO = songMapper.songSummaryToReadSongInfoDTO(song);
+            readSongInfoDTO.setFavorite(favoriteMembership.contains(song.id()));
+            return readSongInfoDTO;
         }).toList();
     }
-
-    /*
-    L'avantage d'utiliser peek() ici est qu'il permet de modifier l'état interne des objets ReadSongInfoDTO
-    (en définissant leur statut de favori) sans interrompre le flux du stream.
-    Après peek(), le stream contient toujours les mêmes objets ReadSongInfoDTO,
-    mais certains d'entre eux ont été modifiés pour refléter leur statut de favori.
-
-    Il est important de noter que peek() est principalement utilisé pour ses effets secondaires
-    (comme la modification d'objets ou le débogage) et non pour transformer les éléments du stream.
-    Si vous vouliez transformer les éléments, vous utiliseriez plutôt map().
-     */
-}                                                                    
-                                                                     
\ No newline at end of file
+}
@@ -0,0 +1,246 @@
+package fr.codecake.spotify_clone.catalogcontext.application;
+
+import fr.codecake.spotify_clone.catalogcontext.application.event.SongCreatedEvent;
+import fr.codecake.spotify_clone.catalogcontext.repository.CatalogVersionCounterRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongRepository;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire des tokens normalisés (minuscules, sans accents) des titres et auteurs.
+ * Construit au démarrage depuis la table song puis alimenté à chaque création de chanson,
+ * il sert l'autocomplétion sans aller-retour vers la base. Les créations des autres instances ne produisent
+ * pas d'événement ici : quand le compteur de modifications dépasse la version indexée, la table est relue.
+ */
+@Component
+public class SongSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SongSuggestIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // Estimations grossières de l'empreinte des structures (en-têtes d'objets, noeuds de map, références).
+    private static final long TOKEN_ENTRY_BYTES = 128;
+    private static final long POSTING_BYTES = 48;
+    private static final long SONG_ENTRY_BYTES = 256;
+
+    // Du moins bon au meilleur : score, puis titre le plus court, puis chanson la plus ancienne.
+    private static final Comparator<ScoredSong> WORST_FIRST = Comparator
+            .comparingInt(ScoredSong::score)
+            .thenComparing(scoredSong -> scoredSong.song().normalizedTitle().length(), Comparator.reverseOrder())
+            .thenComparing(scoredSong -> scoredSong.song().summary().id(), Comparator.reverseOrder());
+
+    private final ConcurrentSkipListMap<String, Set<Long>> songIdsByToken = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, IndexedSong> songsById = new ConcurrentHashMap<>();
+    private final AtomicLong estimatedMemoryBytes = new AtomicLong();
+
+    // Version du compteur de modifications dont toutes les créations sont dans l'index.
+    private final AtomicLong indexedVersion = new AtomicLong();
+
+    private final SongRepository songRepository;
+
+    private final CatalogVersionCounterRepository catalogVersionCounterRepository;
+
+    private final CatalogVersion catalogVersion;
+
+    public SongSuggestIndex(SongRepository songRepository,
+                            CatalogVersionCounterRepository catalogVersionCounterRepository,
+                            CatalogVersion catalogVersion,
+                            MeterRegistry meterRegistry) {
+        this.songRepository = songRepository;
+        this.catalogVersionCounterRepository = catalogVersionCounterRepository;
+        this.catalogVersion = catalogVersion;
+        Gauge.builder("catalog.suggest.index.songs", songsById, ConcurrentHashMap::size)
+                .description("Songs held by the suggest index")
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.index.tokens", songIdsByToken, ConcurrentSkipListMap::size)
+                .description("Distinct tokens held by the suggest index")
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.index.memory", estimatedMemoryBytes, AtomicLong::get)
+                .description("Estimated heap used by the suggest index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        scan();
+        log.info("Suggest index built: {} songs, {} tokens", songsById.size(), songIdsByToken.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSongCreated(SongCreatedEvent songCreatedEvent) {
+        add(songCreatedEvent.song());
+        // Seule la modification suivante fait avancer la version indexée ; une version sautée attend le rattrapage.
+        long version = songCreatedEvent.catalogVersion();
+        indexedVersion.compareAndSet(version - 1, version);
+    }
+
+    @Scheduled(fixedDelayString = "${application.catalog.version.refresh-delay:5000}")
+    public synchronized void catchUp() {
+        if(catalogVersion.current() <= indexedVersion.get()) {
+            return;
+        }
+        try {
+            int indexedSongs = songsById.size();
+            scan();
+            log.debug("Suggest index caught up: {} songs added", songsById.size() - indexedSongs);
+        } catch (RuntimeException e) {
+            log.warn("Unable to catch up the suggest index", e);
+        }
+    }
+
+    // Relit toute la table : les ids sont réservés par blocs propres à chaque instance, une chanson validée
+    // ailleurs peut donc avoir un id plus petit que la dernière indexée. Les chansons déjà connues et inchangées sont ignorées par add.
+    // Version lue avant les chansons : une création concurrente la fait seulement paraître en retard.
+    private void scan() {
+        long version = catalogVersionCounterRepository.findVersion();
+        long lastSongId = 0;
+        List<SongSummary> songs;
+        while (!(songs = songRepository.findPageAfter(lastSongId, PageRequest.of(0, BUILD_BATCH_SIZE))).isEmpty()) {
+            songs.forEach(this::add);
+            lastSongId = songs.get(songs.size() - 1).id();
+        }
+        indexedVersion.accumulateAndGet(version, Math::max);
+    }
+
+    public void add(SongSummary song) {
+        List<String> titleTokens = tokenize(song.title());
+        IndexedSong indexedSong = new IndexedSong(song, String.join(" ", titleTokens), Set.copyOf(titleTokens));
+        // La construction, le rattrapage et les événements de création peuvent voir la même chanson.
+        // Une chanson connue dont le résumé a changé (pochette migrée vers le BlobStore) est remplacée :
+        // titre et auteur ne changent pas, ses tokens restent valables.
+        IndexedSong previous = songsById.putIfAbsent(song.id(), indexedSong);
+        if(previous != null) {
+            if(!previous.summary().equals(song) && songsById.replace(song.id(), previous, indexedSong)) {
+                estimatedMemoryBytes.addAndGet(2L * (length(song.coverHash()) - length(previous.summary().coverHash())));
+            }
+            return;
+        }
+
+        Set<String> tokens = new HashSet<>(titleTokens);
+        tokens.addAll(tokenize(song.author()));
+        for (String token : tokens) {
+            songIdsByToken.computeIfAbsent(token, key -> {
+                estimatedMemoryBytes.addAndGet(TOKEN_ENTRY_BYTES + 2L * key.length());
+                return ConcurrentHashMap.newKeySet();
+            }).add(song.id());
+        }
+        estimatedMemoryBytes.addAndGet(SONG_ENTRY_BYTES + tokens.size() * POSTING_BYTES
+                + 2L * (length(song.title()) + length(song.author()) + length(song.coverHash())));
+    }
+
+    /**
+     * Chaque mot saisi est un préfixe qui doit correspondre à un token du titre ou de l'auteur.
+     * Les candidats sont classés dans un tas borné à {@code limit} éléments.
+     */
+    public List<SongSummary> suggest(String prefix, int limit) {
+        List<String> queryTokens = tokenize(prefix);
+        if(queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> candidates = null;
+        for (String queryToken : queryTokens) {
+            Set<Long> matchingIds = new HashSet<>();
+            songIdsByToken.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(matchingIds::addAll);
+            if(candidates == null) {
+                candidates = matchingIds;
+            } else {
+                candidates.retainAll(matchingIds);
+            }
+            if(candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        String normalizedQuery = String.join(" ", queryTokens);
+        PriorityQueue<ScoredSong> topSongs = new PriorityQueue<>(limit, WORST_FIRST);
+        for (Long songId : candidates) {
+            IndexedSong indexedSong = songsById.get(songId);
+            if(indexedSong == null) {
+                continue;
+            }
+            ScoredSong scoredSong = new ScoredSong(indexedSong, score(indexedSong, normalizedQuery, queryTokens));
+            if(topSongs.size() < limit) {
+                topSongs.add(scoredSong);
+            } else if(WORST_FIRST.compare(scoredSong, topSongs.peek()) > 0) {
+                topSongs.poll();
+                topSongs.add(scoredSong);
+            }
+        }
+
+        List<ScoredSong> suggestions = new ArrayList<>(topSongs);
+        suggestions.sort(WORST_FIRST.reversed());
+        return suggestions.stream()
+                .map(scoredSong -> scoredSong.song().summary())
+                .toList();
+    }
+
+    // Titre commençant par la saisie, puis mots entiers du titre, puis préfixes du titre ; l'auteur seul ne rapporte rien.
+    private int score(IndexedSong indexedSong, String normalizedQuery, List<String> queryTokens) {
+        int score = indexedSong.normalizedTitle().startsWith(normalizedQuery) ? 4 : 0;
+        for (String queryToken : queryTokens) {
+            if(indexedSong.titleTokens().contains(queryToken)) {
+                score += 2;
+            } else if(indexedSong.titleTokens().stream().anyMatch(titleToken -> titleToken.startsWith(queryToken))) {
+                score += 1;
+            }
+        }
+        return score;
+    }
+
+    static List<String> tokenize(String text) {
+        if(text == null) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : TOKEN_SEPARATOR.split(normalized)) {
+            if(!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record IndexedSong(SongSummary summary, String normalizedTitle, Set<String> titleTokens) {
+    }
+
+    private record ScoredSong(IndexedSong song, int score) {
+    }
+}
@@ -0,0 +1,11 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+import java.util.UUID;
+
+// Résultat d'un élément d'un like / unlike groupé : error est renseigné quand l'élément n'a pas été appliqué.
+public record FavoriteSongResultDTO(
+        UUID publicId,
+        boolean favorite,
+        String error
+) {
+}
@@ -12,8 +12,9 @@ public class ReadSongInfoDTO {
 
     private SongAuthorVO author;
 
+    // URL versionnée par le hash de la pochette : les octets ne sont plus inclus dans les listes.
     @NotNull
-    private byte[] cover;
+    private String coverUrl;
 
     @NotNull
     private String coverContentType;
@@ -24,9 +25,8 @@ public class ReadSongInfoDTO {
     @NotNull
     private UUID publicId;
 
-    @NotNull
-    public byte[] getCover() {
-        return cover;
+    public @NotNull String getCoverUrl() {
+        return coverUrl;
     }
 
     public SongTitleVO getTitle() {
@@ -45,8 +45,8 @@ public class ReadSongInfoDTO {
         this.author = author;
     }
 
-    public void setCover(@NotNull byte[] cover) {
-        this.cover = cover;
+    public void setCoverUrl(@NotNull String coverUrl) {
+        this.coverUrl = coverUrl;
     }
 
     public @NotNull String getCoverContentType() {
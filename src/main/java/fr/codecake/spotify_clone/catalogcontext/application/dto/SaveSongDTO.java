@@ -5,12 +5,17 @@ import fr.codecake.spotify_clone.catalogcontext.application.vo.SongTitleVO;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.List;
+
 public record SaveSongDTO(
         @Valid SongTitleVO title,
         @Valid SongAuthorVO author,
-        @NotNull byte[] cover,
+        @NotNull String coverHash,
         @NotNull String coverContentType,
-        @NotNull byte[] file,
-        @NotNull String fileContentType
+        @NotNull String fileHash,
+        @NotNull Long fileSize,
+        @NotNull String fileContentType,
+        @NotNull Integer fileChunkSize,
+        @NotNull List<String> fileChunkHashes
         ) {
 }
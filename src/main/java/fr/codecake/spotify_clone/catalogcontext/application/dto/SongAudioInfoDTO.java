@@ -0,0 +1,18 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+import java.util.UUID;
+
+public record SongAudioInfoDTO(
+        Long songId,
+        UUID publicId,
+        String fileContentType,
+        String fileHash,
+        Integer fileChunkSize,
+        long fileLength
+) {
+
+    // Le contenu d'une chanson n'est jamais modifié après sa création : publicId + taille suffisent comme validateur fort.
+    public String etag() {
+        return "\"" + publicId + "-" + fileLength + "\"";
+    }
+}
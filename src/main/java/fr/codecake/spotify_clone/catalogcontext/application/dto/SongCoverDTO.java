@@ -0,0 +1,23 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+public record SongCoverDTO(
+        Long songId,
+        String coverHash,
+        String blobHash,
+        String contentType,
+        Integer width,
+        boolean cacheable
+) {
+
+    public String etag() {
+        return etagOf(coverHash, width);
+    }
+
+    // Le hash de l'original et la largeur suffisent : les réductions sont déterministes.
+    public static String etagOf(String coverHash, Integer width) {
+        if(coverHash == null) {
+            return null;
+        }
+        return width == null ? "\"" + coverHash + "\"" : "\"" + coverHash + "-w" + width + "\"";
+    }
+}
@@ -0,0 +1,19 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.SongImportStatus;
+
+import java.util.UUID;
+
+public record SongImportJobDTO(
+        UUID publicId,
+        SongImportStatus status,
+        int totalEntries,
+        int processedEntries,
+        int importedSongs,
+        int failedEntries,
+        long importedBytes,
+        double songsPerSecond,
+        double megabytesPerSecond,
+        String lastError
+) {
+}
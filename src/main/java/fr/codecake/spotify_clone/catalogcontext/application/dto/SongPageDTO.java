@@ -0,0 +1,9 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+import java.util.List;
+
+public record SongPageDTO(
+        List<ReadSongInfoDTO> songs,
+        String next
+) {
+}
@@ -0,0 +1,13 @@
+package fr.codecake.spotify_clone.catalogcontext.application.dto;
+
+import java.util.List;
+
+// chunkSize et chunkHashes ne sont renseignés que pour un fichier audio, stocké en blocs.
+public record UploadedContentDTO(
+        String hash,
+        long size,
+        String contentType,
+        Integer chunkSize,
+        List<String> chunkHashes
+) {
+}
@@ -0,0 +1,11 @@
+package fr.codecake.spotify_clone.catalogcontext.application.event;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+
+// Publié par SongService à chaque like / unlike, traité après le commit de la transaction.
+public record FavoriteChangedEvent(
+        String userEmail,
+        SongSummary song,
+        boolean favorite
+) {
+}
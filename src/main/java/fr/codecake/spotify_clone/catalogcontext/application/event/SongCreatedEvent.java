@@ -0,0 +1,11 @@
+package fr.codecake.spotify_clone.catalogcontext.application.event;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+
+// Publié par SongService.create, traité après le commit de la transaction.
+// catalogVersion : valeur du compteur de modifications du catalogue atteinte par cette création.
+public record SongCreatedEvent(
+        SongSummary song,
+        long catalogVersion
+) {
+}
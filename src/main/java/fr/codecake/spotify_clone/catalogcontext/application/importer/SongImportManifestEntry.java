@@ -0,0 +1,10 @@
+package fr.codecake.spotify_clone.catalogcontext.application.importer;
+
+// Une ligne de manifest.json : cover et file sont les chemins des fichiers dans l'archive.
+public record SongImportManifestEntry(
+        String title,
+        String author,
+        String cover,
+        String file
+) {
+}
@@ -0,0 +1,387 @@
+package fr.codecake.spotify_clone.catalogcontext.application.importer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.SongService;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SaveSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongImportJobDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.UploadedContentDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.upload.SongUploadService;
+import fr.codecake.spotify_clone.catalogcontext.application.vo.SongAuthorVO;
+import fr.codecake.spotify_clone.catalogcontext.application.vo.SongTitleVO;
+import fr.codecake.spotify_clone.catalogcontext.domain.SongImportJob;
+import fr.codecake.spotify_clone.catalogcontext.domain.SongImportStatus;
+import fr.codecake.spotify_clone.catalogcontext.repository.SongImportJobRepository;
+import fr.codecake.spotify_clone.infrastucture.service.dto.State;
+import fr.codecake.spotify_clone.infrastucture.service.dto.StateBuilder;
+import fr.codecake.spotify_clone.infrastucture.service.dto.StatusNotification;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Import groupé d'un catalogue : une archive zip contenant un manifest.json et les fichiers qu'il référence.
+ * Les fichiers sont validés, hachés et copiés dans le BlobStore en parallèle, puis les chansons sont insérées
+ * par lots, chaque lot dans sa propre transaction avec l'avancement du job : une reprise repart du dernier lot validé.
+ */
+@Service
+public class SongImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SongImportService.class);
+
+    private static final String MANIFEST_NAME = "manifest.json";
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final List<SongImportStatus> IN_PROGRESS = List.of(SongImportStatus.PENDING, SongImportStatus.RUNNING);
+
+    private final SongImportJobRepository songImportJobRepository;
+
+    private final SongService songService;
+
+    private final SongUploadService songUploadService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path workDirectory;
+
+    private final long maxArchiveSize;
+
+    private final int chunkSize;
+
+    private final String instanceId;
+
+    private final Duration staleAfter;
+
+    // Un seul import à la fois ; les suivants attendent dans une file bornée.
+    private final ThreadPoolExecutor jobExecutor;
+
+    private final ExecutorService storageExecutor;
+
+    public SongImportService(SongImportJobRepository songImportJobRepository,
+                             SongService songService,
+                             SongUploadService songUploadService,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${application.catalog.import.work-dir:./data/imports}") String workDirectory,
+                             @Value("${application.catalog.import.max-archive-size:5GB}") DataSize maxArchiveSize,
+                             @Value("${application.catalog.import.chunk-size:100}") int chunkSize,
+                             @Value("${application.catalog.import.parallelism:4}") int parallelism,
+                             @Value("${application.catalog.import.queue-capacity:10}") int queueCapacity,
+                             @Value("${application.catalog.import.instance-id:${random.uuid}}") String instanceId,
+                             @Value("${application.catalog.import.stale-after:2m}") Duration staleAfter) throws IOException {
+        this.songImportJobRepository = songImportJobRepository;
+        this.songService = songService;
+        this.songUploadService = songUploadService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workDirectory = Files.createDirectories(Path.of(workDirectory));
+        this.maxArchiveSize = maxArchiveSize.toBytes();
+        this.chunkSize = chunkSize;
+        this.instanceId = instanceId;
+        this.staleAfter = staleAfter;
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("song-import-"));
+        this.storageExecutor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("song-import-storage-"));
+    }
+
+    public State<SongImportJobDTO, String> start(InputStream archiveInputStream) throws IOException {
+        StateBuilder<SongImportJobDTO, String> builder = State.builder();
+        Path archivePath = workDirectory.resolve(UUID.randomUUID() + ".zip");
+        if(!copyArchive(archiveInputStream, archivePath)) {
+            Files.deleteIfExists(archivePath);
+            return builder.forError("Archive exceeds the maximum size of " + DataSize.ofBytes(maxArchiveSize).toMegabytes() + "MB").build();
+        }
+
+        int totalEntries;
+        try (ZipFile archive = new ZipFile(archivePath.toFile())) {
+            totalEntries = readManifest(archive).size();
+        } catch (IOException | IllegalArgumentException e) {
+            Files.deleteIfExists(archivePath);
+            return builder.forError("Invalid archive : " + e.getMessage()).build();
+        }
+
+        SongImportJob songImportJob = new SongImportJob();
+        songImportJob.setArchivePath(archivePath.toString());
+        songImportJob.setTotalEntries(totalEntries);
+        songImportJob.setOwner(instanceId);
+        songImportJob.setHeartbeatDate(Instant.now());
+        SongImportJob savedJob = transactionTemplate.execute(status -> songImportJobRepository.save(songImportJob));
+        return submit(savedJob, builder);
+    }
+
+    public State<SongImportJobDTO, String> resume(UUID publicId) {
+        StateBuilder<SongImportJobDTO, String> builder = State.builder();
+        Optional<SongImportJob> failedJob = transactionTemplate.execute(status -> songImportJobRepository.findOneByPublicId(publicId)
+                .filter(songImportJob -> songImportJob.getStatus() == SongImportStatus.FAILED)
+                .map(songImportJob -> {
+                    songImportJob.setStatus(SongImportStatus.PENDING);
+                    songImportJob.setOwner(instanceId);
+                    songImportJob.setHeartbeatDate(Instant.now());
+                    return songImportJob;
+                }));
+        if(failedJob.isEmpty()) {
+            return builder.forError("Only a failed import can be resumed").build();
+        }
+        return submit(failedJob.get(), builder);
+    }
+
+    public Optional<SongImportJobDTO> getByPublicId(UUID publicId) {
+        return songImportJobRepository.findOneByPublicId(publicId).map(this::toDTO);
+    }
+
+    // Un import interrompu par un arrêt de l'application est marqué en échec, donc reprenable.
+    // Ceux qu'une autre instance traite encore (signe de vie récent) ne sont pas touchés.
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedImports() {
+        transactionTemplate.executeWithoutResult(status -> songImportJobRepository.updateStatusOfInterrupted(IN_PROGRESS,
+                instanceId, Instant.now().minus(staleAfter), SongImportStatus.FAILED, "Interrupted by a restart"));
+    }
+
+    // Signe de vie des imports de cette instance, puis échec de ceux d'une instance arrêtée sans redémarrer.
+    @Scheduled(fixedDelayString = "${application.catalog.import.heartbeat-interval:30000}")
+    public void heartbeat() {
+        transactionTemplate.executeWithoutResult(status -> {
+            songImportJobRepository.heartbeat(instanceId, IN_PROGRESS, Instant.now());
+            songImportJobRepository.updateStatusOfStale(IN_PROGRESS, Instant.now().minus(staleAfter),
+                    SongImportStatus.FAILED, "Interrupted, its instance stopped");
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        storageExecutor.shutdownNow();
+    }
+
+    private State<SongImportJobDTO, String> submit(SongImportJob songImportJob, StateBuilder<SongImportJobDTO, String> builder) {
+        try {
+            jobExecutor.execute(() -> run(songImportJob.getId()));
+        } catch (RejectedExecutionException e) {
+            markFailed(songImportJob.getId(), "Too many imports queued");
+            return builder.forError("Too many imports queued, retry later").build();
+        }
+        return builder.forSuccess(toDTO(songImportJob)).build();
+    }
+
+    private void run(Long jobId) {
+        SongImportJob songImportJob = transactionTemplate.execute(status -> {
+            SongImportJob job = songImportJobRepository.findById(jobId).orElseThrow();
+            job.setStatus(SongImportStatus.RUNNING);
+            job.setOwner(instanceId);
+            job.setHeartbeatDate(Instant.now());
+            return job;
+        });
+
+        try (ZipFile archive = new ZipFile(songImportJob.getArchivePath())) {
+            List<SongImportManifestEntry> manifest = readManifest(archive);
+            for (int from = songImportJob.getNextEntry(); from < manifest.size(); from += chunkSize) {
+                importChunk(jobId, archive, manifest.subList(from, Math.min(from + chunkSize, manifest.size())), from);
+            }
+
+            SongImportJob completedJob = transactionTemplate.execute(status -> {
+                SongImportJob job = songImportJobRepository.findById(jobId).orElseThrow();
+                job.setStatus(SongImportStatus.COMPLETED);
+                return job;
+            });
+            Files.deleteIfExists(Path.of(completedJob.getArchivePath()));
+            SongImportJobDTO result = toDTO(completedJob);
+            log.info("Import {} completed: {} songs, {} failed entries, {} songs/s, {} MB/s", result.publicId(),
+                    result.importedSongs(), result.failedEntries(), result.songsPerSecond(), result.megabytesPerSecond());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Import {} failed, it can be resumed", songImportJob.getPublicId(), e);
+            markFailed(jobId, e.getMessage());
+        }
+    }
+
+    private void importChunk(Long jobId, ZipFile archive, List<SongImportManifestEntry> entries, int firstEntry) {
+        long startTime = System.nanoTime();
+
+        List<CompletableFuture<PreparedEntry>> preparations = entries.stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> prepare(archive, entry), storageExecutor))
+                .toList();
+        List<PreparedEntry> preparedEntries = preparations.stream().map(CompletableFuture::join).toList();
+
+        List<SaveSongDTO> validSongs = new ArrayList<>();
+        long chunkBytes = 0;
+        String lastError = null;
+        for (int i = 0; i < preparedEntries.size(); i++) {
+            PreparedEntry preparedEntry = preparedEntries.get(i);
+            if(preparedEntry.error() == null) {
+                validSongs.add(preparedEntry.saveSongDTO());
+                chunkBytes += preparedEntry.bytes();
+            } else {
+                lastError = "Entry " + (firstEntry + i) + " : " + preparedEntry.error();
+            }
+        }
+
+        long importedBytes = chunkBytes;
+        String chunkError = lastError;
+        int nextEntry = firstEntry + entries.size();
+        // Les chansons du lot et l'avancement du job sont validés ensemble.
+        transactionTemplate.executeWithoutResult(status -> {
+            int createdSongs = validSongs.isEmpty() ? 0 : songService.createAll(validSongs);
+            SongImportJob job = songImportJobRepository.findById(jobId).orElseThrow();
+            job.setNextEntry(nextEntry);
+            job.setImportedSongs(job.getImportedSongs() + createdSongs);
+            job.setFailedEntries(job.getFailedEntries() + entries.size() - createdSongs);
+            job.setImportedBytes(job.getImportedBytes() + importedBytes);
+            job.setProcessingMillis(job.getProcessingMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            if(chunkError != null) {
+                job.setLastError(truncate(chunkError));
+            }
+        });
+    }
+
+    // Les fichiers sont content-addressed : une entrée rejouée après une reprise ne duplique rien dans le BlobStore.
+    private PreparedEntry prepare(ZipFile archive, SongImportManifestEntry entry) {
+        ZipEntry coverEntry = entry.cover() == null ? null : archive.getEntry(entry.cover());
+        ZipEntry fileEntry = entry.file() == null ? null : archive.getEntry(entry.file());
+        if(coverEntry == null || fileEntry == null) {
+            return PreparedEntry.rejected("cover or file missing from the archive");
+        }
+
+        try {
+            State<UploadedContentDTO, String> storedCover;
+            try (InputStream coverInputStream = archive.getInputStream(coverEntry)) {
+                storedCover = songUploadService.storeCover(coverInputStream);
+            }
+            if(storedCover.getStatus().equals(StatusNotification.ERROR)) {
+                return PreparedEntry.rejected("cover : " + storedCover.getError());
+            }
+
+            State<UploadedContentDTO, String> storedFile;
+            try (InputStream fileInputStream = archive.getInputStream(fileEntry)) {
+                storedFile = songUploadService.storeAudio(fileInputStream);
+            }
+            if(storedFile.getStatus().equals(StatusNotification.ERROR)) {
+                return PreparedEntry.rejected("file : " + storedFile.getError());
+            }
+
+            SaveSongDTO saveSongDTO = new SaveSongDTO(
+                    new SongTitleVO(entry.title()),
+                    new SongAuthorVO(entry.author()),
+                    storedCover.getValue().hash(),
+                    storedCover.getValue().contentType(),
+                    storedFile.getValue().hash(),
+                    storedFile.getValue().size(),
+                    storedFile.getValue().contentType(),
+                    storedFile.getValue().chunkSize(),
+                    storedFile.getValue().chunkHashes()
+            );
+            Set<ConstraintViolation<SaveSongDTO>> constraintViolations = validator.validate(saveSongDTO);
+            if(!constraintViolations.isEmpty()) {
+                return PreparedEntry.rejected(constraintViolations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .collect(Collectors.joining(", ")));
+            }
+            return new PreparedEntry(saveSongDTO, storedCover.getValue().size() + storedFile.getValue().size(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read entry " + entry.file() + " from the archive", e);
+        }
+    }
+
+    private List<SongImportManifestEntry> readManifest(ZipFile archive) throws IOException {
+        ZipEntry manifestEntry = archive.getEntry(MANIFEST_NAME);
+        if(manifestEntry == null) {
+            throw new IllegalArgumentException(MANIFEST_NAME + " is missing");
+        }
+        try (InputStream manifestInputStream = archive.getInputStream(manifestEntry)) {
+            return objectMapper.readValue(manifestInputStream, new TypeReference<>() {});
+        }
+    }
+
+    private boolean copyArchive(InputStream archiveInputStream, Path archivePath) throws IOException {
+        long copied = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream archiveOutputStream = Files.newOutputStream(archivePath)) {
+            int read;
+            while ((read = archiveInputStream.read(buffer)) != -1) {
+                copied += read;
+                if(copied > maxArchiveSize) {
+                    return false;
+                }
+                archiveOutputStream.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    private void markFailed(Long jobId, String error) {
+        transactionTemplate.executeWithoutResult(status -> songImportJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(SongImportStatus.FAILED);
+            job.setLastError(truncate(error));
+        }));
+    }
+
+    private static String truncate(String error) {
+        return error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+    }
+
+    private SongImportJobDTO toDTO(SongImportJob songImportJob) {
+        double seconds = songImportJob.getProcessingMillis() / 1000.0;
+        double songsPerSecond = seconds == 0 ? 0 : songImportJob.getImportedSongs() / seconds;
+        double megabytesPerSecond = seconds == 0 ? 0 : songImportJob.getImportedBytes() / BYTES_PER_MEGABYTE / seconds;
+        return new SongImportJobDTO(
+                songImportJob.getPublicId(),
+                songImportJob.getStatus(),
+                songImportJob.getTotalEntries(),
+                songImportJob.getNextEntry(),
+                songImportJob.getImportedSongs(),
+                songImportJob.getFailedEntries(),
+                songImportJob.getImportedBytes(),
+                songsPerSecond,
+                megabytesPerSecond,
+                songImportJob.getLastError());
+    }
+
+    private record PreparedEntry(SaveSongDTO saveSongDTO, long bytes, String error) {
+
+        static PreparedEntry rejected(String error) {
+            return new PreparedEntry(null, 0, error);
+        }
+    }
+}
@@ -5,9 +5,12 @@ import fr.codecake.spotify_clone.catalogcontext.application.dto.SaveSongDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.vo.SongAuthorVO;
 import fr.codecake.spotify_clone.catalogcontext.application.vo.SongTitleVO;
 import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.UUID;
+
 @Mapper(componentModel = "spring")
 public interface SongMapper {
 
@@ -20,8 +23,20 @@ public interface SongMapper {
 //    @Mapping(source = "title", target = "title.value")
 //    @Mapping(source = "author", target = "author.value")
     @Mapping(target = "favorite", ignore = true)
+    @Mapping(target = "coverUrl", expression = "java(coverUrl(song.getPublicId(), song.getCoverHash()))")
     ReadSongInfoDTO songToReadSongInfoDTO(Song song);
 
+    @Mapping(target = "favorite", ignore = true)
+    @Mapping(target = "coverUrl", expression = "java(coverUrl(songSummary.publicId(), songSummary.coverHash()))")
+    ReadSongInfoDTO songSummaryToReadSongInfoDTO(SongSummary songSummary);
+
+    SongSummary songToSongSummary(Song song);
+
+    default String coverUrl(UUID publicId, String coverHash) {
+        String coverUrl = "/api/songs/" + publicId + "/cover";
+        return coverHash == null ? coverUrl : coverUrl + "?v=" + coverHash;
+    }
+
     default SongTitleVO stringToSongTitleVO(String songTitle) {
         return new SongTitleVO(songTitle);
     }
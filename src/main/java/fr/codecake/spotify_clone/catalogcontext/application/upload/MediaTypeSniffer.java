@@ -0,0 +1,76 @@
+package fr.codecake.spotify_clone.catalogcontext.application.upload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Détecte le type réel d'un fichier à partir de ses premiers octets (signatures "magic numbers"),
+ * sans faire confiance au Content-Type envoyé par le client.
+ */
+final class MediaTypeSniffer {
+
+    static final int HEADER_LENGTH = 12;
+
+    private MediaTypeSniffer() {
+    }
+
+    static Optional<String> sniff(byte[] header, int length) {
+        if(startsWith(header, length, 0, 0x89, 'P', 'N', 'G')) {
+            return Optional.of("image/png");
+        }
+        if(startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of("image/jpeg");
+        }
+        if(startsWith(header, length, 0, "GIF8")) {
+            return Optional.of("image/gif");
+        }
+        if(startsWith(header, length, 0, "RIFF") && startsWith(header, length, 8, "WEBP")) {
+            return Optional.of("image/webp");
+        }
+        if(startsWith(header, length, 0, "RIFF") && startsWith(header, length, 8, "WAVE")) {
+            return Optional.of("audio/wav");
+        }
+        if(startsWith(header, length, 0, "ID3")) {
+            return Optional.of("audio/mpeg");
+        }
+        if(startsWith(header, length, 0, "OggS")) {
+            return Optional.of("audio/ogg");
+        }
+        if(startsWith(header, length, 0, "fLaC")) {
+            return Optional.of("audio/flac");
+        }
+        if(startsWith(header, length, 4, "ftyp")) {
+            return Optional.of("audio/mp4");
+        }
+        // Synchronisation de trame MPEG (11 bits à 1) : layer 00 pour l'AAC ADTS, sinon MP3.
+        if(length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0) {
+            return Optional.of((header[1] & 0x06) == 0 ? "audio/aac" : "audio/mpeg");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, String signature) {
+        byte[] signatureBytes = signature.getBytes(StandardCharsets.US_ASCII);
+        if(length < offset + signatureBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < signatureBytes.length; i++) {
+            if(header[offset + i] != signatureBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... signature) {
+        if(length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package fr.codecake.spotify_clone.catalogcontext.application.upload;
+
+import fr.codecake.spotify_clone.catalogcontext.application.BlobRefService;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.UploadedContentDTO;
+import fr.codecake.spotify_clone.infrastucture.service.dto.State;
+import fr.codecake.spotify_clone.infrastucture.service.dto.StateBuilder;
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.ChunkedBlob;
+import fr.codecake.spotify_clone.infrastucture.storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copie les parties multipart directement dans le BlobStore avec un tampon de taille fixe :
+ * la mémoire consommée par un upload ne dépend pas de la taille du fichier.
+ * Les fichiers audio sont découpés au passage en blocs de taille fixe, relus ensuite plage par plage.
+ * Tout blob écrit est compté dans blob_ref, à 0 tant que la chanson n'est pas créée : un upload rejeté
+ * en cours de route ne laisse aucun blob que le ramasse-miettes ignorerait.
+ */
+@Service
+public class SongUploadService {
+
+    private final BlobStore blobStore;
+
+    private final BlobRefService blobRefService;
+
+    private final long maxCoverSize;
+
+    private final long maxFileSize;
+
+    private final int audioChunkSize;
+
+    public SongUploadService(BlobStore blobStore,
+                             BlobRefService blobRefService,
+                             @Value("${application.upload.max-cover-size:10MB}") DataSize maxCoverSize,
+                             @Value("${application.upload.max-file-size:100MB}") DataSize maxFileSize,
+                             @Value("${application.storage.chunk-size:1MB}") DataSize audioChunkSize) {
+        this.blobStore = blobStore;
+        this.blobRefService = blobRefService;
+        this.maxCoverSize = maxCoverSize.toBytes();
+        this.maxFileSize = maxFileSize.toBytes();
+        this.audioChunkSize = Math.toIntExact(audioChunkSize.toBytes());
+    }
+
+    public State<UploadedContentDTO, String> storeCover(InputStream inputStream) {
+        return store(inputStream, "image/", maxCoverSize, false);
+    }
+
+    public State<UploadedContentDTO, String> storeAudio(InputStream inputStream) {
+        return store(inputStream, "audio/", maxFileSize, true);
+    }
+
+    private State<UploadedContentDTO, String> store(InputStream inputStream, String expectedMediaFamily, long maxSize, boolean chunked) {
+        StateBuilder<UploadedContentDTO, String> builder = State.builder();
+        ValidatingUploadInputStream validatingInputStream = new ValidatingUploadInputStream(inputStream, expectedMediaFamily, maxSize);
+        List<StoredBlob> storedBlobs = new ArrayList<>();
+        try {
+            UploadedContentDTO uploadedContent;
+            if(chunked) {
+                ChunkedBlob chunkedBlob = blobStore.putChunked(validatingInputStream, audioChunkSize, storedBlobs::add);
+                uploadedContent = new UploadedContentDTO(chunkedBlob.hash(), chunkedBlob.size(),
+                        validatingInputStream.getDetectedContentType(), chunkedBlob.chunkSize(), chunkedBlob.chunkHashes());
+            } else {
+                StoredBlob storedBlob = blobStore.put(validatingInputStream);
+                storedBlobs.add(storedBlob);
+                uploadedContent = new UploadedContentDTO(storedBlob.hash(), storedBlob.size(),
+                        validatingInputStream.getDetectedContentType(), null, null);
+            }
+            return builder.forSuccess(uploadedContent).build();
+        } catch (UploadRejectedException e) {
+            return builder.forError(e.getMessage()).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to store uploaded content", e);
+        } finally {
+            if(!storedBlobs.isEmpty()) {
+                blobRefService.track(storedBlobs);
+            }
+        }
+    }
+}
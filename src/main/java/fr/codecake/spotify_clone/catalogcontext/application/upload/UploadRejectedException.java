@@ -0,0 +1,11 @@
+package fr.codecake.spotify_clone.catalogcontext.application.upload;
+
+import java.io.IOException;
+
+// IOException pour interrompre la copie vers le BlobStore dès que le flux est invalide.
+public class UploadRejectedException extends IOException {
+
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+package fr.codecake.spotify_clone.catalogcontext.application.upload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Valide un upload au fil de la lecture : taille maximale et type réel du contenu
+ * (détecté dès les premiers octets). La copie est interrompue au premier octet invalide.
+ */
+class ValidatingUploadInputStream extends FilterInputStream {
+
+    private final String expectedMediaFamily;
+
+    private final long maxSize;
+
+    private final byte[] header = new byte[MediaTypeSniffer.HEADER_LENGTH];
+
+    private int headerLength;
+
+    private long size;
+
+    private String detectedContentType;
+
+    ValidatingUploadInputStream(InputStream inputStream, String expectedMediaFamily, long maxSize) {
+        super(inputStream);
+        this.expectedMediaFamily = expectedMediaFamily;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if(read == -1) {
+            onEndOfStream();
+        } else {
+            onBytesRead(new byte[]{(byte) read}, 0, 1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if(read == -1) {
+            onEndOfStream();
+        } else {
+            onBytesRead(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("Skipping is not supported while validating an upload");
+    }
+
+    public String getDetectedContentType() {
+        return detectedContentType;
+    }
+
+    private void onBytesRead(byte[] buffer, int offset, int read) throws IOException {
+        size += read;
+        if(size > maxSize) {
+            throw new UploadRejectedException("File exceeds the maximum size of " + maxSize + " bytes");
+        }
+
+        if(detectedContentType == null && headerLength < header.length) {
+            int copied = Math.min(read, header.length - headerLength);
+            System.arraycopy(buffer, offset, header, headerLength, copied);
+            headerLength += copied;
+            if(headerLength == header.length) {
+                detectContentType();
+            }
+        }
+    }
+
+    private void onEndOfStream() throws IOException {
+        if(size == 0) {
+            throw new UploadRejectedException("File is empty");
+        }
+        if(detectedContentType == null) {
+            detectContentType();
+        }
+    }
+
+    private void detectContentType() throws UploadRejectedException {
+        String contentType = MediaTypeSniffer.sniff(header, headerLength)
+                .orElseThrow(() -> new UploadRejectedException("Unsupported file format"));
+        if(!contentType.startsWith(expectedMediaFamily)) {
+            throw new UploadRejectedException("Expected " + expectedMediaFamily + "* content but received " + contentType);
+        }
+        detectedContentType = contentType;
+    }
+}
@@ -0,0 +1,46 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+// Compteur de références d'un blob du BlobStore (pochette, bloc audio, fichier non découpé).
+// Un contenu partagé par plusieurs chansons n'est stocké qu'une fois ; à 0, plus aucune chanson ne le référence.
+@Entity
+@Table(name = "blob_ref")
+public class BlobRef implements Serializable {
+
+    @Id
+    @Column(name = "hash")
+    private String hash;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(Long refCount) {
+        this.refCount = refCount;
+    }
+}
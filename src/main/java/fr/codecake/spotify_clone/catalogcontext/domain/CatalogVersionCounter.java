@@ -0,0 +1,34 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+// Ligne unique du compteur de modifications du catalogue, incrémentée dans la transaction de chaque création.
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersionCounter implements Serializable {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
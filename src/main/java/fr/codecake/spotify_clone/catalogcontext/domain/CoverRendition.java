@@ -0,0 +1,58 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "cover_rendition")
+@IdClass(CoverRenditionId.class)
+public class CoverRendition implements Serializable {
+
+    @Id
+    @Column(name = "cover_hash")
+    private String coverHash;
+
+    @Id
+    @Column(name = "width")
+    private Integer width;
+
+    // Hash de la version réduite dans le BlobStore (égal à coverHash si l'original est déjà plus petit).
+    @Column(name = "rendition_hash", nullable = false)
+    private String renditionHash;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    public String getCoverHash() {
+        return coverHash;
+    }
+
+    public void setCoverHash(String coverHash) {
+        this.coverHash = coverHash;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public String getRenditionHash() {
+        return renditionHash;
+    }
+
+    public void setRenditionHash(String renditionHash) {
+        this.renditionHash = renditionHash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,48 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class CoverRenditionId implements Serializable {
+
+    String coverHash;
+
+    Integer width;
+
+    public CoverRenditionId() {
+    }
+
+    public CoverRenditionId(String coverHash, Integer width) {
+        this.coverHash = coverHash;
+        this.width = width;
+    }
+
+    public String getCoverHash() {
+        return coverHash;
+    }
+
+    public void setCoverHash(String coverHash) {
+        this.coverHash = coverHash;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CoverRenditionId that = (CoverRenditionId) o;
+        return Objects.equals(coverHash, that.coverHash) && Objects.equals(width, that.width);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(coverHash, width);
+    }
+}
@@ -10,9 +10,11 @@ import java.util.UUID;
 @Table(name = "song")
 public class Song implements Serializable {
 
+    // Ids réservés par blocs de 50 par instance : ils ne suivent pas l'ordre des commits.
+    // La version du catalogue (caches, ETags) vient donc du compteur catalog_version, jamais de max(id).
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "songSequenceGenerator")
-    @SequenceGenerator(name = "songSequenceGenerator", sequenceName = "song_generator", allocationSize = 1)
+    @SequenceGenerator(name = "songSequenceGenerator", sequenceName = "song_generator", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -27,9 +29,9 @@ public class Song implements Serializable {
     @Column(name = "author", nullable = false)
     private String author;
 
-    @Lob
-    @Column(name = "cover", nullable = false)
-    private byte[] cover;
+    // Hash SHA-256 de la pochette dans le BlobStore : les octets ne transitent plus par la base.
+    @Column(name = "cover_hash")
+    private String coverHash;
 
     @Column(name = "cover_content_type", nullable = false)
     private String coverContentType;
@@ -66,12 +68,12 @@ public class Song implements Serializable {
         this.author = author;
     }
 
-    public byte[] getCover() {
-        return cover;
+    public String getCoverHash() {
+        return coverHash;
     }
 
-    public void setCover(byte[] cover) {
-        this.cover = cover;
+    public void setCoverHash(String coverHash) {
+        this.coverHash = coverHash;
     }
 
     public String getCoverContentType() {
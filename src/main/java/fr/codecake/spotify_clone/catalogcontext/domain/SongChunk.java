@@ -0,0 +1,47 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+// Entrée du manifeste d'un fichier audio découpé : le bloc n° seq est le blob chunkHash du BlobStore.
+@Entity
+@Table(name = "song_chunk")
+@IdClass(SongChunkId.class)
+public class SongChunk implements Serializable {
+
+    @Id
+    @Column(name = "song_id")
+    private Long songId;
+
+    @Id
+    @Column(name = "seq")
+    private Integer seq;
+
+    @Column(name = "chunk_hash", nullable = false)
+    private String chunkHash;
+
+    public Long getSongId() {
+        return songId;
+    }
+
+    public void setSongId(Long songId) {
+        this.songId = songId;
+    }
+
+    public Integer getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Integer seq) {
+        this.seq = seq;
+    }
+
+    public String getChunkHash() {
+        return chunkHash;
+    }
+
+    public void setChunkHash(String chunkHash) {
+        this.chunkHash = chunkHash;
+    }
+}
@@ -0,0 +1,48 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class SongChunkId implements Serializable {
+
+    Long songId;
+
+    Integer seq;
+
+    public SongChunkId() {
+    }
+
+    public SongChunkId(Long songId, Integer seq) {
+        this.songId = songId;
+        this.seq = seq;
+    }
+
+    public Long getSongId() {
+        return songId;
+    }
+
+    public void setSongId(Long songId) {
+        this.songId = songId;
+    }
+
+    public Integer getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Integer seq) {
+        this.seq = seq;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SongChunkId that = (SongChunkId) o;
+        return Objects.equals(songId, that.songId) && Objects.equals(seq, that.seq);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(songId, seq);
+    }
+}
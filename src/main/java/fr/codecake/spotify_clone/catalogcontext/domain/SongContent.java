@@ -19,13 +19,20 @@ public class SongContent implements Serializable {
     // @JoinColumn : Spécifie que la colonne song_id dans SongContent est une clé étrangère qui référence la colonne id dans Song.
     // referencedColumnName : Indique la colonne de l'entité principale (Song) référencée par la clé étrangère dans l'entité dépendante (SongContent).
 
-    @Lob // Indique que le champ file est un grand objet binaire (BLOB binary large ocject), permettant de stocker de grandes quantités de données.
-    @Column(name = "file")
-    private byte[] file;
+    // Le fichier audio est stocké dans le BlobStore, référencé par son hash SHA-256.
+    @Column(name = "file_hash")
+    private String fileHash;
+
+    @Column(name = "file_size")
+    private Long fileSize;
 
     @Column(name = "file_content_type")
     private String fileContentType;
 
+    // Taille des blocs du fichier découpé (table song_chunk) ; nulle tant que le fichier est un blob unique.
+    @Column(name = "file_chunk_size")
+    private Integer fileChunkSize;
+
     public Long getSongId() {
         return songId;
     }
@@ -42,12 +49,20 @@ public class SongContent implements Serializable {
         this.song = song;
     }
 
-    public byte[] getFile() {
-        return file;
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
     }
 
-    public void setFile(byte[] file) {
-        this.file = file;
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
     }
 
     public String getFileContentType() {
@@ -57,4 +72,12 @@ public class SongContent implements Serializable {
     public void setFileContentType(String fileContentType) {
         this.fileContentType = fileContentType;
     }
+
+    public Integer getFileChunkSize() {
+        return fileChunkSize;
+    }
+
+    public void setFileChunkSize(Integer fileChunkSize) {
+        this.fileChunkSize = fileChunkSize;
+    }
 }
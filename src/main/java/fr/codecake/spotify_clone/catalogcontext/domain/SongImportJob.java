@@ -0,0 +1,168 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+import fr.codecake.spotify_clone.sharedkernel.domain.AbstractAuditingEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Suivi d'un import groupé. nextEntry est mis à jour dans la même transaction que chaque lot de chansons :
+ * après une panne, l'import reprend exactement après le dernier lot validé.
+ */
+@Entity
+@Table(name = "song_import_job")
+public class SongImportJob extends AbstractAuditingEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "songImportJobSequenceGenerator")
+    @SequenceGenerator(name = "songImportJobSequenceGenerator", sequenceName = "song_import_job_generator", allocationSize = 1)
+    @Column(name = "id")
+    private Long id;
+
+    @UuidGenerator
+    @Column(name = "public_id", nullable = false)
+    private UUID publicId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private SongImportStatus status = SongImportStatus.PENDING;
+
+    @Column(name = "archive_path", nullable = false)
+    private String archivePath;
+
+    @Column(name = "total_entries", nullable = false)
+    private int totalEntries;
+
+    @Column(name = "next_entry", nullable = false)
+    private int nextEntry;
+
+    @Column(name = "imported_songs", nullable = false)
+    private int importedSongs;
+
+    @Column(name = "failed_entries", nullable = false)
+    private int failedEntries;
+
+    @Column(name = "imported_bytes", nullable = false)
+    private long importedBytes;
+
+    // Temps passé à importer, cumulé entre les reprises : base du calcul du débit.
+    @Column(name = "processing_millis", nullable = false)
+    private long processingMillis;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    // Instance qui traite l'import, et dernière preuve qu'elle est toujours en vie.
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "heartbeat_date")
+    private Instant heartbeatDate;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UUID getPublicId() {
+        return publicId;
+    }
+
+    public void setPublicId(UUID publicId) {
+        this.publicId = publicId;
+    }
+
+    public SongImportStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SongImportStatus status) {
+        this.status = status;
+    }
+
+    public String getArchivePath() {
+        return archivePath;
+    }
+
+    public void setArchivePath(String archivePath) {
+        this.archivePath = archivePath;
+    }
+
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    public void setTotalEntries(int totalEntries) {
+        this.totalEntries = totalEntries;
+    }
+
+    public int getNextEntry() {
+        return nextEntry;
+    }
+
+    public void setNextEntry(int nextEntry) {
+        this.nextEntry = nextEntry;
+    }
+
+    public int getImportedSongs() {
+        return importedSongs;
+    }
+
+    public void setImportedSongs(int importedSongs) {
+        this.importedSongs = importedSongs;
+    }
+
+    public int getFailedEntries() {
+        return failedEntries;
+    }
+
+    public void setFailedEntries(int failedEntries) {
+        this.failedEntries = failedEntries;
+    }
+
+    public long getImportedBytes() {
+        return importedBytes;
+    }
+
+    public void setImportedBytes(long importedBytes) {
+        this.importedBytes = importedBytes;
+    }
+
+    public long getProcessingMillis() {
+        return processingMillis;
+    }
+
+    public void setProcessingMillis(long processingMillis) {
+        this.processingMillis = processingMillis;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getHeartbeatDate() {
+        return heartbeatDate;
+    }
+
+    public void setHeartbeatDate(Instant heartbeatDate) {
+        this.heartbeatDate = heartbeatDate;
+    }
+}
@@ -0,0 +1,5 @@
+package fr.codecake.spotify_clone.catalogcontext.domain;
+
+public enum SongImportStatus {
+    PENDING, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,62 @@
+package fr.codecake.spotify_clone.catalogcontext.presentation;
+
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongImportJobDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.importer.SongImportService;
+import fr.codecake.spotify_clone.infrastucture.service.dto.State;
+import fr.codecake.spotify_clone.infrastucture.service.dto.StatusNotification;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api")
+public class SongImportResource {
+
+    private final SongImportService songImportService;
+
+    public SongImportResource(SongImportService songImportService) {
+        this.songImportService = songImportService;
+    }
+
+    // Le corps de la requête est l'archive zip elle-même, copiée en flux sur disque avant le traitement en tâche de fond.
+    @PostMapping(value = "/songs/imports", consumes = {"application/zip", "application/octet-stream"})
+    public ResponseEntity<SongImportJobDTO> start(HttpServletRequest request) throws IOException {
+        State<SongImportJobDTO, String> songImportJob;
+        try (InputStream archiveInputStream = request.getInputStream()) {
+            songImportJob = songImportService.start(archiveInputStream);
+        }
+        return accepted(songImportJob);
+    }
+
+    @PostMapping("/songs/imports/{publicId}/resume")
+    public ResponseEntity<SongImportJobDTO> resume(@PathVariable UUID publicId) {
+        return accepted(songImportService.resume(publicId));
+    }
+
+    @GetMapping("/songs/imports/{publicId}")
+    public ResponseEntity<SongImportJobDTO> getByPublicId(@PathVariable UUID publicId) {
+        return songImportService.getByPublicId(publicId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<SongImportJobDTO> accepted(State<SongImportJobDTO, String> songImportJob) {
+        if(songImportJob.getStatus().equals(StatusNotification.ERROR)) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, songImportJob.getError());
+            return ResponseEntity.of(problemDetail).build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/songs/imports/{publicId}")
+                .buildAndExpand(songImportJob.getValue().publicId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(songImportJob.getValue());
+    }
+}
@@ -1,48 +1,102 @@
 package fr.codecake.spotify_clone.catalogcontext.presentation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.codecake.spotify_clone.catalogcontext.application.CatalogEtag;
+import fr.codecake.spotify_clone.catalogcontext.application.CatalogSnapshot;
+import fr.codecake.spotify_clone.catalogcontext.application.CoverRenditionService;
+import fr.codecake.spotify_clone.catalogcontext.application.SongExportService;
 import fr.codecake.spotify_clone.catalogcontext.application.SongService;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.FavoriteSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.FavoriteSongResultDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.ReadSongInfoDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.SaveSongDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongAudioInfoDTO;
 import fr.codecake.spotify_clone.catalogcontext.application.dto.SongContentDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongCoverDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.SongPageDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.UploadedContentDTO;
+import fr.codecake.spotify_clone.catalogcontext.application.upload.SongUploadService;
 import fr.codecake.spotify_clone.infrastucture.service.dto.State;
 import fr.codecake.spotify_clone.infrastucture.service.dto.StatusNotification;
+import fr.codecake.spotify_clone.infrastucture.web.GzipResponseCacheFilter;
 import fr.codecake.spotify_clone.usercontext.ReadUserDTO;
 import fr.codecake.spotify_clone.usercontext.application.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
 import jakarta.validation.Validator;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
 public class SongResource {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String DEPRECATION_HEADER = "Deprecation";
+
+    // Champs de SaveSongDTO fournis par le client, les autres décrivent les fichiers stockés.
+    private static final Set<String> METADATA_FIELDS = Set.of("title", "author");
+
+    private static final Pattern COVER_HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final CacheControl IMMUTABLE_COVER_CACHE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    // Listes décorées des favoris de l'utilisateur : revalidées à chaque affichage, jamais partagées par un proxy.
+    private static final CacheControl CATALOG_CACHE = CacheControl.noCache().cachePrivate();
+
     private final SongService songService;
 
     private final Validator validator;
 
     private UserService userService;
 
+    private final SongUploadService songUploadService;
+
+    private final CoverRenditionService coverRenditionService;
+
+    private final SongExportService songExportService;
+
+    private final CatalogEtag catalogEtag;
+
+    private final CatalogSnapshot catalogSnapshot;
+
     private final ObjectMapper objectMapper = new ObjectMapper(); // deserialiser le JSON
 
-    public SongResource(Validator validator, UserService userService, SongService songService) {
+    public SongResource(Validator validator, UserService userService, SongService songService,
+                        SongUploadService songUploadService, CoverRenditionService coverRenditionService,
+                        SongExportService songExportService, CatalogEtag catalogEtag, CatalogSnapshot catalogSnapshot) {
         this.validator = validator;
         this.userService = userService;
         this.songService = songService;
+        this.songUploadService = songUploadService;
+        this.coverRenditionService = coverRenditionService;
+        this.songExportService = songExportService;
+        this.catalogEtag = catalogEtag;
+        this.catalogSnapshot = catalogSnapshot;
     }
 
     @PostMapping(value = "/songs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -51,44 +105,174 @@ public class SongResource {
             @RequestPart(name = "file") MultipartFile file,
             @RequestPart(name = "dto") String saveSongDTOString
     ) throws IOException {
-        SaveSongDTO saveSongDTO = objectMapper.readValue(saveSongDTOString, SaveSongDTO.class);
-        saveSongDTO = new SaveSongDTO(
-                saveSongDTO.title(),
-                saveSongDTO.author(),
-                cover.getBytes(),
-                cover.getContentType(),
-                file.getBytes(),
-                file.getContentType()
+        SaveSongDTO songMetadata = objectMapper.readValue(saveSongDTOString, SaveSongDTO.class);
+
+        // Titre et auteur vérifiés avant d'écrire quoi que ce soit dans le BlobStore ; les champs des fichiers
+        // ne sont renseignés qu'après le stockage. Un fichier rejeté ensuite reste compté à 0 et sera supprimé.
+        Set<ConstraintViolation<SaveSongDTO>> metadataViolations = validator.validate(songMetadata)
+                .stream()
+                .filter(violation -> METADATA_FIELDS.contains(violation.getPropertyPath().iterator().next().getName()))
+                .collect(Collectors.toSet());
+        if(!metadataViolations.isEmpty()) {
+            return validationError(metadataViolations);
+        }
+
+        // Les parties sont lues en flux vers le BlobStore, jamais chargées entièrement en mémoire.
+        State<UploadedContentDTO, String> storedCover;
+        try (InputStream coverInputStream = cover.getInputStream()) {
+            storedCover = songUploadService.storeCover(coverInputStream);
+        }
+        if(storedCover.getStatus().equals(StatusNotification.ERROR)) {
+            return uploadError("cover", storedCover.getError());
+        }
+
+        State<UploadedContentDTO, String> storedFile;
+        try (InputStream fileInputStream = file.getInputStream()) {
+            storedFile = songUploadService.storeAudio(fileInputStream);
+        }
+        if(storedFile.getStatus().equals(StatusNotification.ERROR)) {
+            return uploadError("file", storedFile.getError());
+        }
+
+        SaveSongDTO saveSongDTO = new SaveSongDTO(
+                songMetadata.title(),
+                songMetadata.author(),
+                storedCover.getValue().hash(),
+                storedCover.getValue().contentType(),
+                storedFile.getValue().hash(),
+                storedFile.getValue().size(),
+                storedFile.getValue().contentType(),
+                storedFile.getValue().chunkSize(),
+                storedFile.getValue().chunkHashes()
         );
 
         Set<ConstraintViolation<SaveSongDTO>> constraintViolations = validator.validate(saveSongDTO);
 
         if(!constraintViolations.isEmpty()) {
-            String violationsJoined = constraintViolations
-                    .stream()
-                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
-                    .collect(Collectors.joining());
-
-            ProblemDetail validationIssue = ProblemDetail.forStatusAndDetail(
-                    HttpStatus.BAD_REQUEST,
-                    "Validation errors for the fields : " + violationsJoined
-            );
-            return ResponseEntity.of(validationIssue).build();
+            return validationError(constraintViolations);
         } else {
             return ResponseEntity.ok(songService.create(saveSongDTO));
         }
     }
 
+    private ResponseEntity<ReadSongInfoDTO> validationError(Set<ConstraintViolation<SaveSongDTO>> constraintViolations) {
+        String violationsJoined = constraintViolations
+                .stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .collect(Collectors.joining());
+
+        ProblemDetail validationIssue = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST,
+                "Validation errors for the fields : " + violationsJoined
+        );
+        return ResponseEntity.of(validationIssue).build();
+    }
+
+    private ResponseEntity<ReadSongInfoDTO> uploadError(String part, String error) {
+        ProblemDetail uploadIssue = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, part + " : " + error);
+        return ResponseEntity.of(uploadIssue).build();
+    }
+
+    // Le corps reste un tableau de chansons ; le curseur de la page suivante est transmis dans les en-têtes.
     @GetMapping("/songs")
-    public ResponseEntity<List<ReadSongInfoDTO>> getAll() {
-        return ResponseEntity.ok(songService.getAll());
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String next,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestHeader HttpHeaders requestHeaders,
+                                    HttpServletRequest request) {
+        String etag = catalogEtag.forPage(next, limit, requestHeaders.getFirst(HttpHeaders.ACCEPT));
+        Optional<String> notModifiedEtag = matchingCatalogEtag(requestHeaders, etag);
+        if(notModifiedEtag.isPresent()) {
+            return notModified(notModifiedEtag.get());
+        }
+
+        // Visiteur anonyme : octets préparés à l'avance, envoyés tels quels sans sérialisation ni compression.
+        if(!userService.isAuthenticated() && prefersJson(requestHeaders)) {
+            Optional<CatalogSnapshot.Page> snapshotPage = catalogSnapshot.page(next, limit);
+            if(snapshotPage.isPresent()) {
+                return snapshotResponse(snapshotPage.get(), etag, requestHeaders, request);
+            }
+        }
+
+        State<SongPageDTO, String> songPage = songService.getAll(next, limit);
+        if(songPage.getStatus().equals(StatusNotification.ERROR)) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, songPage.getError());
+            return ResponseEntity.of(problemDetail).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE)
+                .varyBy(HttpHeaders.ACCEPT);
+        return withNextPage(response, songPage.getValue().next()).body(songPage.getValue().songs());
+    }
+
+    // Le filtre gzip n'a rien à faire : corps déjà compressé ou client qui refuse gzip.
+    private ResponseEntity<byte[]> snapshotResponse(CatalogSnapshot.Page page, String etag, HttpHeaders requestHeaders,
+                                                    HttpServletRequest request) {
+        request.setAttribute(GzipResponseCacheFilter.PRECOMPRESSED_RESPONSE, Boolean.TRUE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CATALOG_CACHE)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        withNextPage(response, page.next());
+        if(GzipResponseCacheFilter.acceptsGzip(requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.eTag(GzipResponseCacheFilter.gzipEtagOf(etag))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(page.gzip().length)
+                    .body(page.gzip());
+        }
+        return response.eTag(etag)
+                .contentLength(page.json().length)
+                .body(page.json());
+    }
+
+    private ResponseEntity.BodyBuilder withNextPage(ResponseEntity.BodyBuilder response, String nextCursor) {
+        if(nextCursor != null) {
+            String nextPageUrl = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("next", nextCursor)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, nextCursor)
+                    .header(HttpHeaders.LINK, "<" + nextPageUrl + ">; rel=\"next\"");
+        }
+        return response;
     }
 
+    // L'instantané n'existe qu'en JSON : un client qui préfère CBOR ou Smile passe par la sérialisation négociée.
+    private boolean prefersJson(HttpHeaders requestHeaders) {
+        return requestHeaders.getAccept().stream()
+                .max(Comparator.comparingDouble(MediaType::getQualityValue))
+                .map(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON))
+                .orElse(true);
+    }
+
+    // Le corps est écrit hors du thread de la requête, dans sa propre transaction en lecture seule.
+    @GetMapping(value = "/songs/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(songExportService::export);
+    }
+
+    /**
+     * Ancien lecteur : le fichier entier est lu en mémoire puis encodé en base64 dans le JSON,
+     * la mémoire consommée croît donc avec la taille du morceau et le nombre d'écoutes simultanées.
+     * Conservé pour les clients existants ; utiliser GET /api/songs/{publicId}/audio (streaming, requêtes Range).
+     *
+     * @deprecated remplacé par {@link #streamAudio(UUID, HttpHeaders)}
+     */
+    @Deprecated
     @GetMapping("/songs/get-content")
     public ResponseEntity<SongContentDTO> getOneByPublicId(@RequestParam UUID publicId) {
         Optional<SongContentDTO> songContent = songService.getOneByPublicId(publicId);
+        String successorUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/songs/{publicId}/audio")
+                .buildAndExpand(publicId)
+                .toUriString();
         return songContent
-                .map(ResponseEntity::ok)
+                .map(content -> ResponseEntity.ok()
+                        .header(DEPRECATION_HEADER, "true")
+                        .header(HttpHeaders.LINK, "<" + successorUrl + ">; rel=\"successor-version\"")
+                        .body(content))
                 .orElseGet(
                         () -> ResponseEntity.of(
                                 ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,"UUID Unknown")
@@ -97,10 +281,159 @@ public class SongResource {
                 );
     }
 
+    @GetMapping("/songs/{publicId}/audio")
+    public ResponseEntity<StreamingResponseBody> streamAudio(@PathVariable UUID publicId,
+                                                             @RequestHeader HttpHeaders requestHeaders) {
+        Optional<SongAudioInfoDTO> audioInfoOpt = songService.getAudioInfo(publicId);
+        if(audioInfoOpt.isEmpty()) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "UUID Unknown")).build();
+        }
+
+        SongAudioInfoDTO audioInfo = audioInfoOpt.get();
+        long fileLength = audioInfo.fileLength();
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        responseHeaders.setETag(audioInfo.etag());
+        responseHeaders.setContentType(mediaTypeOf(audioInfo.fileContentType()));
+
+        List<HttpRange> ranges = requestedRanges(requestHeaders, audioInfo.etag());
+        // Plusieurs plages (multipart/byteranges) : on renvoie le fichier entier, ce que la RFC 9110 autorise.
+        if(ranges.size() != 1) {
+            responseHeaders.setContentLength(fileLength);
+            return new ResponseEntity<>(audioBody(audioInfo, 0, fileLength), responseHeaders, HttpStatus.OK);
+        }
+
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(fileLength);
+            end = range.getRangeEnd(fileLength);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength)
+                    .build();
+        }
+
+        long rangeLength = end - start + 1;
+        responseHeaders.setContentLength(rangeLength);
+        responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+        return new ResponseEntity<>(audioBody(audioInfo, start, rangeLength), responseHeaders, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    // If-Range ne correspondant pas à l'ETag courant : la plage est ignorée et le fichier complet est renvoyé.
+    private List<HttpRange> requestedRanges(HttpHeaders requestHeaders, String etag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if(ifRange != null && !ifRange.equals(etag)) {
+            return List.of();
+        }
+        try {
+            return requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private MediaType mediaTypeOf(String contentType) {
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private StreamingResponseBody audioBody(SongAudioInfoDTO audioInfo, long start, long length) {
+        return outputStream -> songService.writeAudioRange(audioInfo, start, length, outputStream);
+    }
+
+    @GetMapping("/songs/{publicId}/cover")
+    public ResponseEntity<StreamingResponseBody> getCover(@PathVariable UUID publicId,
+                                                          @RequestParam(name = "v", required = false) String version,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestHeader HttpHeaders requestHeaders) {
+        if(size != null && size <= 0) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Size must be positive");
+            return ResponseEntity.of(problemDetail).build();
+        }
+        // URL versionnée par le hash : si le client possède déjà cette version, inutile d'interroger la base.
+        if(version != null && COVER_HASH_PATTERN.matcher(version).matches()) {
+            String versionEtag = SongCoverDTO.etagOf(version, coverRenditionService.renditionWidthFor(size));
+            if(isNotModified(requestHeaders, versionEtag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(versionEtag)
+                        .cacheControl(IMMUTABLE_COVER_CACHE)
+                        .build();
+            }
+        }
+
+        Optional<SongCoverDTO> coverOpt = songService.getCover(publicId, size);
+        if(coverOpt.isEmpty()) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "UUID Unknown")).build();
+        }
+
+        SongCoverDTO cover = coverOpt.get();
+        // Seule une représentation définitive demandée avec le hash courant peut être mise en cache indéfiniment.
+        CacheControl cacheControl = cover.cacheable() && cover.coverHash() != null && cover.coverHash().equals(version)
+                ? IMMUTABLE_COVER_CACHE
+                : CacheControl.noCache();
+
+        if(cover.etag() != null && isNotModified(requestHeaders, cover.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cover.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaTypeOf(cover.contentType()))
+                .cacheControl(cacheControl);
+        if(cover.etag() != null) {
+            response.eTag(cover.etag());
+        }
+        return response.body(outputStream -> songService.writeCover(cover, outputStream));
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
 
     @GetMapping("/songs/search")
-    public ResponseEntity<List<ReadSongInfoDTO>> search(@RequestParam String term) {
-        return ResponseEntity.ok(songService.search(term));
+    public ResponseEntity<List<ReadSongInfoDTO>> search(@RequestParam String term,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestHeader HttpHeaders requestHeaders) {
+        String etag = catalogEtag.forSearch(term, limit, requestHeaders.getFirst(HttpHeaders.ACCEPT));
+        Optional<String> notModifiedEtag = matchingCatalogEtag(requestHeaders, etag);
+        if(notModifiedEtag.isPresent()) {
+            return notModified(notModifiedEtag.get());
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(songService.search(term, limit));
+    }
+
+    // Le client a pu recevoir la variante compressée (GzipResponseCacheFilter) : ses deux ETags valident la même version.
+    private Optional<String> matchingCatalogEtag(HttpHeaders requestHeaders, String etag) {
+        return Stream.of(etag, GzipResponseCacheFilter.gzipEtagOf(etag))
+                .filter(candidate -> isNotModified(requestHeaders, candidate))
+                .findFirst();
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    @GetMapping("/songs/suggest")
+    public ResponseEntity<List<ReadSongInfoDTO>> suggest(@RequestParam String prefix,
+                                                         @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(songService.suggest(prefix, limit));
     }
 
     @PostMapping("/songs/like")
@@ -116,6 +449,19 @@ public class SongResource {
         }
     }
 
+    @PostMapping("/songs/like/batch")
+    public ResponseEntity<List<FavoriteSongResultDTO>> addOrRemoveFromFavorites(@RequestBody List<FavoriteSongDTO> favoriteSongDTOs) {
+        ReadUserDTO userFromAuthentification = userService.getAuthenticatedUserFormSecurityContext();
+        State<List<FavoriteSongResultDTO>, String> favoriteSongsResponse = songService.addOrRemoveFromFavorites(favoriteSongDTOs, userFromAuthentification.email());
+
+        if(favoriteSongsResponse.getStatus().equals(StatusNotification.ERROR)) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, favoriteSongsResponse.getError());
+            return ResponseEntity.of(problemDetail).build();
+        } else {
+            return ResponseEntity.ok(favoriteSongsResponse.getValue());
+        }
+    }
+
     @GetMapping("/songs/like")
     public ResponseEntity<List<ReadSongInfoDTO>> fetchFavoriteSongs() {
         ReadUserDTO userFromAuthentification = userService.getAuthenticatedUserFormSecurityContext();
@@ -0,0 +1,11 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.BlobRef;
+
+import java.util.Collection;
+
+public interface BlobRefBatchRepository {
+
+    // refCount de chaque élément : nombre de références ajoutées, pas la valeur finale du compteur.
+    void incrementAll(Collection<BlobRef> increments);
+}
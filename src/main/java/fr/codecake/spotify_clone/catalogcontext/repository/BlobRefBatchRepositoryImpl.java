@@ -0,0 +1,76 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.BlobRef;
+import fr.codecake.spotify_clone.infrastucture.persistence.DatabaseVendor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+public class BlobRefBatchRepositoryImpl implements BlobRefBatchRepository {
+
+    // Lignes par instruction : reste loin de la limite de paramètres JDBC (3 par ligne).
+    private static final int ROWS_PER_STATEMENT = 200;
+
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO {h-schema}blob_ref (hash, size, ref_count)
+            VALUES %s
+            ON CONFLICT (hash) DO UPDATE
+            SET ref_count = blob_ref.ref_count + EXCLUDED.ref_count
+            """;
+
+    private static final String POSTGRES_ROW = "(:hash%1$d, :size%1$d, :refCount%1$d)";
+
+    // Équivalent portable (H2) via MERGE.
+    private static final String PORTABLE_UPSERT = """
+            MERGE INTO {h-schema}blob_ref b
+            USING (VALUES %s) AS r(hash, size, ref_count)
+            ON b.hash = r.hash
+            WHEN MATCHED THEN UPDATE SET ref_count = b.ref_count + r.ref_count
+            WHEN NOT MATCHED THEN INSERT (hash, size, ref_count) VALUES (r.hash, r.size, r.ref_count)
+            """;
+
+    private static final String PORTABLE_ROW =
+            "(CAST(:hash%1$d AS VARCHAR(64)), CAST(:size%1$d AS BIGINT), CAST(:refCount%1$d AS BIGINT))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseVendor databaseVendor;
+
+    public BlobRefBatchRepositoryImpl(DatabaseVendor databaseVendor) {
+        this.databaseVendor = databaseVendor;
+    }
+
+    // Une instruction par paquet de lignes plutôt qu'une par blob : un fichier de 100 Mo compte une centaine de blocs.
+    // Lignes triées par hash : deux uploads partageant des blobs verrouillent les lignes dans le même ordre, sans interblocage.
+    @Override
+    public void incrementAll(Collection<BlobRef> increments) {
+        List<BlobRef> sortedIncrements = increments.stream()
+                .sorted(Comparator.comparing(BlobRef::getHash))
+                .toList();
+        for (int from = 0; from < sortedIncrements.size(); from += ROWS_PER_STATEMENT) {
+            upsert(sortedIncrements.subList(from, Math.min(from + ROWS_PER_STATEMENT, sortedIncrements.size())));
+        }
+    }
+
+    private void upsert(List<BlobRef> rows) {
+        boolean postgres = databaseVendor.isPostgres();
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < rows.size(); i++) {
+            values.add((postgres ? POSTGRES_ROW : PORTABLE_ROW).formatted(i));
+        }
+
+        Query query = entityManager.createNativeQuery((postgres ? POSTGRES_UPSERT : PORTABLE_UPSERT).formatted(values));
+        for (int i = 0; i < rows.size(); i++) {
+            query.setParameter("hash" + i, rows.get(i).getHash())
+                    .setParameter("size" + i, rows.get(i).getSize())
+                    .setParameter("refCount" + i, rows.get(i).getRefCount());
+        }
+        query.executeUpdate();
+    }
+}
@@ -0,0 +1,74 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.BlobRef;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.BlobRefUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface BlobRefRepository extends JpaRepository<BlobRef, String>, BlobRefBatchRepository {
+
+    @Modifying
+    @Query(value = """
+            UPDATE {h-schema}blob_ref SET ref_count = ref_count - 1
+            WHERE hash = :hash AND ref_count > 0
+""", nativeQuery = true)
+    int release(String hash);
+
+    @Query(value = """
+            SELECT COUNT(*) AS blobCount,
+                   COALESCE(SUM(b.size), 0) AS storedBytes,
+                   COALESCE(SUM(b.size * b.ref_count), 0) AS referencedBytes
+            FROM {h-schema}blob_ref b
+            WHERE b.ref_count > 0
+""", nativeQuery = true)
+    BlobRefUsage findUsage();
+
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}blob_ref", nativeQuery = true)
+    int deleteAllRows();
+
+    // Mêmes références que celles comptées à l'écriture : pochettes, blocs audio et fichiers pas encore découpés.
+    // Les tailles, absentes de la base pour les pochettes, sont renseignées ensuite depuis le BlobStore.
+    @Modifying
+    @Query(value = """
+            INSERT INTO {h-schema}blob_ref (hash, size, ref_count)
+            SELECT r.hash, 0, COUNT(*) FROM (
+                SELECT s.cover_hash AS hash FROM {h-schema}song s WHERE s.cover_hash IS NOT NULL
+                UNION ALL
+                SELECT sc.file_hash AS hash FROM {h-schema}song_content sc
+                WHERE sc.file_hash IS NOT NULL AND sc.file_chunk_size IS NULL
+                UNION ALL
+                SELECT c.chunk_hash AS hash FROM {h-schema}song_chunk c
+            ) r
+            GROUP BY r.hash
+""", nativeQuery = true)
+    int insertCountsFromReferences();
+
+    @Query(value = """
+            SELECT b.hash FROM {h-schema}blob_ref b
+            WHERE b.hash > :afterHash
+            ORDER BY b.hash
+            LIMIT :limit
+""", nativeQuery = true)
+    List<String> findHashesAfter(String afterHash, int limit);
+
+    @Modifying
+    @Query(value = "UPDATE {h-schema}blob_ref SET size = :size WHERE hash = :hash", nativeQuery = true)
+    int updateSize(String hash, long size);
+
+    @Query(value = """
+            SELECT b.hash FROM {h-schema}blob_ref b
+            WHERE b.ref_count = 0 AND b.hash > :afterHash
+            ORDER BY b.hash
+            LIMIT :limit
+""", nativeQuery = true)
+    List<String> findUnreferencedHashesAfter(String afterHash, int limit);
+
+    // Sans effet si une écriture concurrente a de nouveau référencé le blob.
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}blob_ref WHERE hash = :hash AND ref_count = 0", nativeQuery = true)
+    int deleteUnreferenced(String hash);
+}
@@ -0,0 +1,17 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.CatalogVersionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CatalogVersionCounterRepository extends JpaRepository<CatalogVersionCounter, Integer> {
+
+    // Verrouille la ligne jusqu'au commit : les créations concurrentes valident dans l'ordre de leurs versions.
+    @Modifying
+    @Query(value = "UPDATE {h-schema}catalog_version SET version = version + :count WHERE id = 1", nativeQuery = true)
+    int increment(long count);
+
+    @Query(value = "SELECT c.version FROM {h-schema}catalog_version c WHERE c.id = 1", nativeQuery = true)
+    long findVersion();
+}
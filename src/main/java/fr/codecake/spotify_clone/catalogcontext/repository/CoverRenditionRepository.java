@@ -0,0 +1,22 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.CoverRendition;
+import fr.codecake.spotify_clone.catalogcontext.domain.CoverRenditionId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CoverRenditionRepository extends JpaRepository<CoverRendition, CoverRenditionId> {
+
+    boolean existsByCoverHash(String coverHash);
+
+    @Query(value = """
+            SELECT DISTINCT s.cover_hash FROM {h-schema}song s
+            WHERE s.cover_hash > :afterCoverHash
+            AND NOT EXISTS (SELECT 1 FROM {h-schema}cover_rendition cr WHERE cr.cover_hash = s.cover_hash)
+            ORDER BY s.cover_hash
+            LIMIT :limit
+""", nativeQuery = true)
+    List<String> findCoverHashesWithoutRenditions(String afterCoverHash, int limit);
+}
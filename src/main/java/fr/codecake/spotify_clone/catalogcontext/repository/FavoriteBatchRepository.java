@@ -0,0 +1,10 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.Favorite;
+
+import java.util.Collection;
+
+public interface FavoriteBatchRepository {
+
+    void insertAll(Collection<Favorite> favorites);
+}
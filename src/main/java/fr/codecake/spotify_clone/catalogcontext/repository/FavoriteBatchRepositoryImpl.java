@@ -0,0 +1,73 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.Favorite;
+import fr.codecake.spotify_clone.infrastucture.persistence.DatabaseVendor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+public class FavoriteBatchRepositoryImpl implements FavoriteBatchRepository {
+
+    // Lignes par instruction : reste loin de la limite de paramètres JDBC (2 par ligne).
+    private static final int ROWS_PER_STATEMENT = 200;
+
+    private static final String POSTGRES_INSERT = """
+            INSERT INTO {h-schema}favorite_song (user_email, song_public_id)
+            VALUES %s
+            ON CONFLICT (user_email, song_public_id) DO NOTHING
+            """;
+
+    private static final String POSTGRES_ROW = "(:userEmail%1$d, CAST(:songPublicId%1$d AS UUID))";
+
+    // Équivalent portable (H2) via MERGE.
+    private static final String PORTABLE_INSERT = """
+            MERGE INTO {h-schema}favorite_song f
+            USING (VALUES %s) AS r(user_email, song_public_id)
+            ON f.user_email = r.user_email AND f.song_public_id = r.song_public_id
+            WHEN NOT MATCHED THEN INSERT (user_email, song_public_id) VALUES (r.user_email, r.song_public_id)
+            """;
+
+    private static final String PORTABLE_ROW =
+            "(CAST(:userEmail%1$d AS VARCHAR(255)), CAST(:songPublicId%1$d AS UUID))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseVendor databaseVendor;
+
+    public FavoriteBatchRepositoryImpl(DatabaseVendor databaseVendor) {
+        this.databaseVendor = databaseVendor;
+    }
+
+    // Un favori déjà présent (double clic, autre onglet, autre instance) est ignoré au lieu de faire échouer tout le lot.
+    // Lignes triées par chanson : deux lots concurrents du même utilisateur verrouillent dans le même ordre, sans interblocage.
+    @Override
+    public void insertAll(Collection<Favorite> favorites) {
+        List<Favorite> sortedFavorites = favorites.stream()
+                .sorted(Comparator.comparing(Favorite::getUserEmail).thenComparing(Favorite::getSongPublicId))
+                .toList();
+        for (int from = 0; from < sortedFavorites.size(); from += ROWS_PER_STATEMENT) {
+            insert(sortedFavorites.subList(from, Math.min(from + ROWS_PER_STATEMENT, sortedFavorites.size())));
+        }
+    }
+
+    private void insert(List<Favorite> rows) {
+        boolean postgres = databaseVendor.isPostgres();
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < rows.size(); i++) {
+            values.add((postgres ? POSTGRES_ROW : PORTABLE_ROW).formatted(i));
+        }
+
+        Query query = entityManager.createNativeQuery((postgres ? POSTGRES_INSERT : PORTABLE_INSERT).formatted(values));
+        for (int i = 0; i < rows.size(); i++) {
+            query.setParameter("userEmail" + i, rows.get(i).getUserEmail())
+                    .setParameter("songPublicId" + i, rows.get(i).getSongPublicId());
+        }
+        query.executeUpdate();
+    }
+}
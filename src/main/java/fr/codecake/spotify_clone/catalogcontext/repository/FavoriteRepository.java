@@ -3,10 +3,22 @@ package fr.codecake.spotify_clone.catalogcontext.repository;
 import fr.codecake.spotify_clone.catalogcontext.domain.Favorite;
 import fr.codecake.spotify_clone.catalogcontext.domain.FavoriteId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-public interface FavoriteRepository extends JpaRepository<Favorite, FavoriteId> {
-    List<Favorite> findAllByUserEmailAndSongPublicIdIn(String email, List<UUID> songPublicIds);
+public interface FavoriteRepository extends JpaRepository<Favorite, FavoriteId>, FavoriteBatchRepository {
+
+    @Query("SELECT s.id FROM Song s, Favorite f WHERE f.songPublicId = s.publicId AND f.userEmail = :email")
+    List<Long> findFavoriteSongIdsByUserEmail(String email);
+
+    @Query("SELECT f.songPublicId FROM Favorite f WHERE f.userEmail = :email AND f.songPublicId IN :songPublicIds")
+    List<UUID> findSongPublicIdsByUserEmailAndSongPublicIdIn(String email, Collection<UUID> songPublicIds);
+
+    @Modifying
+    @Query("DELETE FROM Favorite f WHERE f.userEmail = :email AND f.songPublicId IN :songPublicIds")
+    int deleteAllByUserEmailAndSongPublicIdIn(String email, Collection<UUID> songPublicIds);
 }
@@ -0,0 +1,8 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import java.util.List;
+
+public interface SongChunkBatchRepository {
+
+    void insertManifest(Long songId, List<String> chunkHashes);
+}
@@ -0,0 +1,26 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.SongChunk;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+public class SongChunkBatchRepositoryImpl implements SongChunkBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Clé (song_id, seq) fournie : persist() évite le SELECT que ferait save() pour chaque bloc.
+    // Les INSERT sont regroupés en lots JDBC (hibernate.jdbc.batch_size) au flush.
+    @Override
+    public void insertManifest(Long songId, List<String> chunkHashes) {
+        for (int seq = 0; seq < chunkHashes.size(); seq++) {
+            SongChunk songChunk = new SongChunk();
+            songChunk.setSongId(songId);
+            songChunk.setSeq(seq);
+            songChunk.setChunkHash(chunkHashes.get(seq));
+            entityManager.persist(songChunk);
+        }
+    }
+}
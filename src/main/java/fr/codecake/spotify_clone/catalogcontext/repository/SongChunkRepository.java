@@ -0,0 +1,19 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.SongChunk;
+import fr.codecake.spotify_clone.catalogcontext.domain.SongChunkId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface SongChunkRepository extends JpaRepository<SongChunk, SongChunkId>, SongChunkBatchRepository {
+
+    // Uniquement les blocs qui couvrent la plage demandée, dans l'ordre du fichier (parcours de la clé primaire).
+    @Query(value = """
+            SELECT c.chunk_hash FROM {h-schema}song_chunk c
+            WHERE c.song_id = :songId AND c.seq BETWEEN :firstSeq AND :lastSeq
+            ORDER BY c.seq
+""", nativeQuery = true)
+    List<String> findChunkHashes(Long songId, int firstSeq, int lastSeq);
+}
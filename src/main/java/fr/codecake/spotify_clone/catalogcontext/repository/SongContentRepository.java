@@ -1,11 +1,76 @@
 package fr.codecake.spotify_clone.catalogcontext.repository;
 
 import fr.codecake.spotify_clone.catalogcontext.domain.SongContent;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongAudioInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface SongContentRepository extends JpaRepository<SongContent, Long> {
     Optional<SongContent> findOneBySongPublicId(UUID publicId);
+
+    // Métadonnées du fichier audio sans charger le LOB en mémoire.
+    // file_size est nul tant que la ligne n'a pas été migrée vers le BlobStore.
+    @Query(value = """
+            SELECT sc.song_id AS songId,
+                   sc.file_content_type AS fileContentType,
+                   sc.file_hash AS fileHash,
+                   sc.file_chunk_size AS fileChunkSize,
+                   COALESCE(sc.file_size, CAST(octet_length(sc.file) AS bigint)) AS fileLength
+            FROM {h-schema}song_content sc
+            JOIN {h-schema}song s ON s.id = sc.song_id
+            WHERE s.public_id = :publicId
+""", nativeQuery = true)
+    Optional<SongAudioInfo> findAudioInfoBySongPublicId(UUID publicId);
+
+    // Lit uniquement la fenêtre demandée du fichier (position commence à 1).
+    @Query(value = """
+            SELECT substring(sc.file FROM CAST(:position AS integer) FOR CAST(:length AS integer))
+            FROM {h-schema}song_content sc
+            WHERE sc.song_id = :songId
+""", nativeQuery = true)
+    byte[] findFileSlice(Long songId, int position, int length);
+
+    @Query(value = "SELECT sc.file FROM {h-schema}song_content sc WHERE sc.song_id = :songId", nativeQuery = true)
+    byte[] findInlineFile(Long songId);
+
+    // Nul si le fichier n'est plus dans la ligne (déjà migré vers le BlobStore).
+    @Query(value = "SELECT CAST(octet_length(sc.file) AS bigint) FROM {h-schema}song_content sc WHERE sc.song_id = :songId", nativeQuery = true)
+    Long findInlineFileLength(Long songId);
+
+    @Query(value = """
+            SELECT sc.song_id FROM {h-schema}song_content sc
+            WHERE sc.file_hash IS NULL AND sc.song_id > :afterSongId
+            ORDER BY sc.song_id
+            LIMIT :limit
+""", nativeQuery = true)
+    List<Long> findSongIdsWithInlineFile(long afterSongId, int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE {h-schema}song_content
+            SET file_hash = :fileHash, file_size = :fileSize, file = NULL
+            WHERE song_id = :songId AND file_hash IS NULL
+""", nativeQuery = true)
+    int moveFileToBlobStore(Long songId, String fileHash, long fileSize);
+
+    @Query(value = """
+            SELECT sc.song_id FROM {h-schema}song_content sc
+            WHERE sc.file_hash IS NOT NULL AND sc.file_chunk_size IS NULL AND sc.song_id > :afterSongId
+            ORDER BY sc.song_id
+            LIMIT :limit
+""", nativeQuery = true)
+    List<Long> findSongIdsWithUnchunkedFile(long afterSongId, int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE {h-schema}song_content
+            SET file_chunk_size = :chunkSize
+            WHERE song_id = :songId AND file_hash = :fileHash AND file_chunk_size IS NULL
+""", nativeQuery = true)
+    int markFileChunked(Long songId, String fileHash, int chunkSize);
 }
@@ -0,0 +1,40 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.domain.SongImportJob;
+import fr.codecake.spotify_clone.catalogcontext.domain.SongImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SongImportJobRepository extends JpaRepository<SongImportJob, Long> {
+
+    Optional<SongImportJob> findOneByPublicId(UUID publicId);
+
+    @Modifying
+    @Query("UPDATE SongImportJob j SET j.heartbeatDate = :now WHERE j.owner = :owner AND j.status IN :statuses")
+    int heartbeat(String owner, Collection<SongImportStatus> statuses, Instant now);
+
+    // Imports de cette instance (relancée avec le même identifiant) ou d'une instance sans signe de vie depuis staleBefore.
+    @Modifying
+    @Query("""
+            UPDATE SongImportJob j SET j.status = :newStatus, j.lastError = :lastError
+            WHERE j.status IN :statuses
+            AND (j.owner = :owner OR j.heartbeatDate IS NULL OR j.heartbeatDate < :staleBefore)
+""")
+    int updateStatusOfInterrupted(Collection<SongImportStatus> statuses, String owner, Instant staleBefore,
+                                  SongImportStatus newStatus, String lastError);
+
+    @Modifying
+    @Query("""
+            UPDATE SongImportJob j SET j.status = :newStatus, j.lastError = :lastError
+            WHERE j.status IN :statuses
+            AND (j.heartbeatDate IS NULL OR j.heartbeatDate < :staleBefore)
+""")
+    int updateStatusOfStale(Collection<SongImportStatus> statuses, Instant staleBefore,
+                            SongImportStatus newStatus, String lastError);
+}
@@ -1,28 +1,84 @@
 package fr.codecake.spotify_clone.catalogcontext.repository;
 
 import fr.codecake.spotify_clone.catalogcontext.domain.Song;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongCoverInfo;
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface SongRepository extends JpaRepository<Song, Long> {
+public interface SongRepository extends JpaRepository<Song, Long>, SongSearchRepository {
+
+    Optional<Song> findOneByPublicId(UUID publicId);
 
     @Query("""
-            SELECT s FROM Song s\s
-            WHERE lower(s.title) LIKE lower(concat('%', :searchTerm, '%'))
-            OR lower(s.author) LIKE lower(concat('%', :searchTerm, '%'))\s
+            SELECT new fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary(
+                s.id, s.publicId, s.title, s.author, s.coverHash, s.coverContentType)
+            FROM Song s
+            WHERE s.publicId IN :publicIds
 """)
-    List<Song> findByTitleOrAuthorContaining(String searchTerm);
+    List<SongSummary> findAllByPublicIdIn(Collection<UUID> publicIds);
 
-    Optional<Song> findOneByPublicId(UUID publicId);
+    // Pagination par clé sur la séquence : coût constant quelle que soit la page, ordre stable.
+    @Query("""
+            SELECT new fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary(
+                s.id, s.publicId, s.title, s.author, s.coverHash, s.coverContentType)
+            FROM Song s
+            WHERE s.id > :afterId
+            ORDER BY s.id
+""")
+    List<SongSummary> findPageAfter(long afterId, Pageable pageable);
+
+    // Curseur côté serveur : les lignes arrivent par lots de fetch size, jamais tout le catalogue en mémoire.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Song s ORDER BY s.id")
+    Stream<Song> streamAllOrderById();
 
     @Query("""
-            SELECT song FROM Song song\s
+            SELECT s.id AS id, s.coverHash AS coverHash, s.coverContentType AS coverContentType
+            FROM Song s
+            WHERE s.publicId = :publicId
+""")
+    Optional<SongCoverInfo> findCoverByPublicId(UUID publicId);
+
+    @Query("""
+            SELECT new fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary(
+                song.id, song.publicId, song.title, song.author, song.coverHash, song.coverContentType)
+            FROM Song song\s
             JOIN Favorite fav ON song.publicId = fav.songPublicId
             WHERE fav.userEmail = :email
 """)
-    List<Song> findAllFavoriteByUserEmail(String email);
+    List<SongSummary> findAllFavoriteByUserEmail(String email);
+
+    @Query(value = "SELECT s.cover FROM {h-schema}song s WHERE s.id = :songId", nativeQuery = true)
+    byte[] findInlineCover(Long songId);
+
+    @Query(value = """
+            SELECT s.id FROM {h-schema}song s
+            WHERE s.cover_hash IS NULL AND s.id > :afterSongId
+            ORDER BY s.id
+            LIMIT :limit
+""", nativeQuery = true)
+    List<Long> findIdsWithInlineCover(long afterSongId, int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE {h-schema}song
+            SET cover_hash = :coverHash, cover = NULL
+            WHERE id = :songId AND cover_hash IS NULL
+""", nativeQuery = true)
+    int moveCoverToBlobStore(Long songId, String coverHash);
 }
@@ -0,0 +1,10 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+
+import java.util.List;
+
+public interface SongSearchRepository {
+
+    List<SongSummary> searchByTitleOrAuthor(String searchTerm, int limit);
+}
@@ -0,0 +1,76 @@
+package fr.codecake.spotify_clone.catalogcontext.repository;
+
+import fr.codecake.spotify_clone.catalogcontext.repository.projection.SongSummary;
+import fr.codecake.spotify_clone.infrastucture.persistence.DatabaseVendor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+public class SongSearchRepositoryImpl implements SongSearchRepository {
+
+    private static final String SEARCH_QUERY = """
+            SELECT s.id, s.public_id, s.title, s.author, s.cover_hash, s.cover_content_type
+            FROM {h-schema}song s
+            WHERE lower(s.title) LIKE :pattern ESCAPE '\\'
+            OR lower(s.author) LIKE :pattern ESCAPE '\\'
+            ORDER BY %s, s.id
+            LIMIT :limit
+            """;
+
+    // Index GIN pg_trgm sur lower(title) / lower(author) : le LIKE '%terme%' n'est plus un parcours complet.
+    private static final String POSTGRES_RANKING =
+            "greatest(public.similarity(lower(s.title), :term), public.similarity(lower(s.author), :term)) DESC";
+
+    // Repli portable (H2) : correspondance exacte, puis début de titre, puis début d'auteur.
+    private static final String PORTABLE_RANKING = """
+            CASE WHEN lower(s.title) = :term THEN 0
+                 WHEN lower(s.title) LIKE :prefix ESCAPE '\\' THEN 1
+                 WHEN lower(s.author) LIKE :prefix ESCAPE '\\' THEN 2
+                 ELSE 3 END""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseVendor databaseVendor;
+
+    public SongSearchRepositoryImpl(DatabaseVendor databaseVendor) {
+        this.databaseVendor = databaseVendor;
+    }
+
+    @Override
+    public List<SongSummary> searchByTitleOrAuthor(String searchTerm, int limit) {
+        String term = searchTerm.toLowerCase(Locale.ROOT);
+        String escapedTerm = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        String ranking = databaseVendor.isPostgres() ? POSTGRES_RANKING : PORTABLE_RANKING;
+        NativeQuery<SongSummary> query = toSongSummaries(entityManager.createNativeQuery(SEARCH_QUERY.formatted(ranking)))
+                .setParameter("pattern", "%" + escapedTerm + "%")
+                .setParameter("term", term)
+                .setParameter("limit", limit);
+        if(!databaseVendor.isPostgres()) {
+            query.setParameter("prefix", escapedTerm + "%");
+        }
+        return query.getResultList();
+    }
+
+    // Projection SongSummary construite ici plutôt que par un @SqlResultSetMapping sur l'entité Song :
+    // le domaine ne dépend pas des projections du repository.
+    @SuppressWarnings("unchecked")
+    private static NativeQuery<SongSummary> toSongSummaries(Query query) {
+        return ((NativeQuery<Object[]>) query.unwrap(NativeQuery.class))
+                .addScalar("id", Long.class)
+                .addScalar("public_id", UUID.class)
+                .addScalar("title", String.class)
+                .addScalar("author", String.class)
+                .addScalar("cover_hash", String.class)
+                .addScalar("cover_content_type", String.class)
+                .setTupleTransformer((tuple, aliases) -> new SongSummary(
+                        (Long) tuple[0], (UUID) tuple[1], (String) tuple[2],
+                        (String) tuple[3], (String) tuple[4], (String) tuple[5]));
+    }
+}
@@ -0,0 +1,12 @@
+package fr.codecake.spotify_clone.catalogcontext.repository.projection;
+
+public interface BlobRefUsage {
+
+    Long getBlobCount();
+
+    // Octets réellement présents dans le BlobStore, un contenu partagé n'étant compté qu'une fois.
+    Long getStoredBytes();
+
+    // Octets qu'occuperait le même catalogue sans partage : chaque référence compte son blob.
+    Long getReferencedBytes();
+}
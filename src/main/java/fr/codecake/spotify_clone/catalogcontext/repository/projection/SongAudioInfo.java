@@ -0,0 +1,14 @@
+package fr.codecake.spotify_clone.catalogcontext.repository.projection;
+
+public interface SongAudioInfo {
+
+    Long getSongId();
+
+    String getFileContentType();
+
+    String getFileHash();
+
+    Integer getFileChunkSize();
+
+    Long getFileLength();
+}
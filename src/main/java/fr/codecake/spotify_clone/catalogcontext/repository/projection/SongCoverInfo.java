@@ -0,0 +1,10 @@
+package fr.codecake.spotify_clone.catalogcontext.repository.projection;
+
+public interface SongCoverInfo {
+
+    Long getId();
+
+    String getCoverHash();
+
+    String getCoverContentType();
+}
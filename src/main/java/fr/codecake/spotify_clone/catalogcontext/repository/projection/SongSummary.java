@@ -0,0 +1,18 @@
+package fr.codecake.spotify_clone.catalogcontext.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Projection en lecture seule des colonnes affichées dans les listes.
+ * Construite directement par la requête JPQL (SELECT new ...) : aucune entité gérée,
+ * donc ni dirty checking ni contexte de persistance à alimenter.
+ */
+public record SongSummary(
+        Long id,
+        UUID publicId,
+        String title,
+        String author,
+        String coverHash,
+        String coverContentType
+) {
+}
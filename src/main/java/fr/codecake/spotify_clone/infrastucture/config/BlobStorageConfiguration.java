@@ -0,0 +1,33 @@
+package fr.codecake.spotify_clone.infrastucture.config;
+
+import fr.codecake.spotify_clone.infrastucture.storage.BlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.LocalFileSystemBlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.MeteredBlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class BlobStorageConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.storage.type", havingValue = "local", matchIfMissing = true)
+    public BlobStore localFileSystemBlobStore(@Value("${application.storage.local.root-path}") String rootPath,
+                                              @Value("${application.storage.buffer-size:64KB}") DataSize bufferSize,
+                                              @Value("${application.storage.max-buffered-size:1MB}") DataSize maxBufferedSize,
+                                              MeterRegistry meterRegistry) throws IOException {
+        return new MeteredBlobStore(new LocalFileSystemBlobStore(Path.of(rootPath),
+                Math.toIntExact(bufferSize.toBytes()), Math.toIntExact(maxBufferedSize.toBytes())), meterRegistry);
+    }
+}
+
+/*
+ * Le BlobStore est une interface : une autre implémentation (S3, GCS...) peut être déclarée
+ * avec application.storage.type sans toucher au code métier, qui ne manipule que des hash.
+ */
@@ -0,0 +1,31 @@
+package fr.codecake.spotify_clone.infrastucture.config;
+
+import fr.codecake.spotify_clone.infrastucture.metrics.QueryCounter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Les timers des endpoints (http.server.requests) et les métriques du pool Hikari (hikaricp.connections.*)
+ * sont fournis par Spring Boot Actuator ; leurs histogrammes sont activés dans application.yaml.
+ * Le tout est exposé au format Prometheus sur /actuator/prometheus, authentifié comme le reste de l'API :
+ * le scraper présente un jeton Bearer (authorization.credentials côté Prometheus).
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    // Active @Timed sur les services (SongService, UserService).
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+    }
+}
+
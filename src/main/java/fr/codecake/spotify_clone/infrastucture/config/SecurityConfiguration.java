@@ -17,6 +17,9 @@ public class SecurityConfiguration {
         http.authorizeHttpRequests(authorize -> authorize
                 .requestMatchers(HttpMethod.GET, "api/songs").permitAll()
                 .requestMatchers(HttpMethod.GET, "api/songs/search").permitAll()
+                .requestMatchers(HttpMethod.GET, "api/songs/suggest").permitAll()
+                .requestMatchers(HttpMethod.GET, "api/songs/*/cover").permitAll()
+                .requestMatchers(HttpMethod.GET, "actuator/health").permitAll()
                 .anyRequest().authenticated())
                 .csrf(csrf -> csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                         .csrfTokenRequestHandler(new CsrfTokenRequestAttributeHandler()))
@@ -0,0 +1,69 @@
+package fr.codecake.spotify_clone.infrastucture.metrics;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+
+// Compte au passage les octets écrits sur le flux binaire de la réponse, sans les mettre en tampon.
+// Les rares réponses écrites via getWriter() sont mesurées par leur Content-Length.
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private long bytesWritten;
+
+    private ServletOutputStream outputStream;
+
+    CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    long getBytesWritten() {
+        if(bytesWritten == 0 && getHeader("Content-Length") != null) {
+            return Long.parseLong(getHeader("Content-Length"));
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if(outputStream == null) {
+            ServletOutputStream target = super.getOutputStream();
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    bytesWritten++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    bytesWritten += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return target.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    target.setWriteListener(writeListener);
+                }
+            };
+        }
+        return outputStream;
+    }
+}
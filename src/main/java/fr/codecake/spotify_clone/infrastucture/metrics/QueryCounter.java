@@ -0,0 +1,31 @@
+package fr.codecake.spotify_clone.infrastucture.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate sur le thread de la requête HTTP en cours.
+ * Le compteur n'existe que pendant le passage dans RequestMetricsFilter : hors requête, l'inspection ne coûte qu'une lecture de ThreadLocal.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> QUERY_COUNT = new ThreadLocal<>();
+
+    static void start() {
+        QUERY_COUNT.set(new int[1]);
+    }
+
+    static int stop() {
+        int[] queryCount = QUERY_COUNT.get();
+        QUERY_COUNT.remove();
+        return queryCount == null ? 0 : queryCount[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] queryCount = QUERY_COUNT.get();
+        if(queryCount != null) {
+            queryCount[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,93 @@
+package fr.codecake.spotify_clone.infrastucture.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Distribution de la taille des réponses et du nombre de requêtes SQL par requête HTTP, étiquetées comme
+ * http.server.requests (méthode, uri, statut). Pour une réponse asynchrone (flux audio, export),
+ * la taille est enregistrée à la fin du transfert ; les requêtes SQL comptées sont celles du thread initial.
+ */
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponseWrapper countingResponse = new CountingResponseWrapper(response);
+        QueryCounter.start();
+        int queryCount;
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            queryCount = QueryCounter.stop();
+        }
+
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("SQL statements executed while handling a request")
+                .tags(tags(request, countingResponse))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(queryCount);
+
+        if(request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    recordResponseSize(request, countingResponse);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            recordResponseSize(request, countingResponse);
+        }
+    }
+
+    private void recordResponseSize(HttpServletRequest request, CountingResponseWrapper response) {
+        DistributionSummary.builder("http.server.responses.size")
+                .description("Size of response bodies")
+                .baseUnit("bytes")
+                .tags(tags(request, response))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(response.getBytesWritten());
+    }
+
+    // Le modèle d'URI (/api/songs/{publicId}/audio) et non l'URI brute, pour garder une cardinalité bornée.
+    private Tags tags(HttpServletRequest request, HttpServletResponse response) {
+        Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return Tags.of(
+                "method", request.getMethod(),
+                "uri", uriPattern == null ? "UNKNOWN" : uriPattern.toString(),
+                "status", String.valueOf(response.getStatus()));
+    }
+}
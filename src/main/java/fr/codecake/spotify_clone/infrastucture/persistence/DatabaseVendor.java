@@ -0,0 +1,26 @@
+package fr.codecake.spotify_clone.infrastucture.persistence;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indique si la base courante est PostgreSQL, pour les rares requêtes natives qui utilisent
+ * des fonctionnalités propres à PostgreSQL (pg_trgm, ON CONFLICT...) avec un repli portable pour H2.
+ */
+@Component
+public class DatabaseVendor {
+
+    private final boolean postgres;
+
+    public DatabaseVendor(EntityManagerFactory entityManagerFactory) {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.postgres = dialect instanceof PostgreSQLDialect;
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+}
@@ -0,0 +1,70 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.channels.WritableByteChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Stockage des contenus binaires (audio, pochettes) adressé par leur hash SHA-256.
+ * Les entités ne conservent que le hash ; un même contenu n'est stocké qu'une seule fois.
+ */
+public interface BlobStore {
+
+    StoredBlob put(InputStream inputStream) throws IOException;
+
+    boolean exists(String hash);
+
+    long size(String hash) throws IOException;
+
+    byte[] read(String hash) throws IOException;
+
+    InputStream open(String hash) throws IOException;
+
+    long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException;
+
+    // Date de la dernière écriture du blob, y compris celles évitées parce qu'il était déjà présent.
+    Instant lastModified(String hash) throws IOException;
+
+    boolean delete(String hash) throws IOException;
+
+    default ChunkedBlob putChunked(InputStream inputStream, int chunkSize) throws IOException {
+        return putChunked(inputStream, chunkSize, chunk -> {});
+    }
+
+    /**
+     * Stocke le flux en blocs de chunkSize octets, chacun adressé par son propre hash, en une seule lecture.
+     * Une plage du contenu se relit ensuite en ne touchant que les blocs qui la couvrent.
+     * Chaque bloc est signalé à onChunkStored dès son écriture : ceux d'un flux interrompu restent connus de l'appelant.
+     */
+    default ChunkedBlob putChunked(InputStream inputStream, int chunkSize, Consumer<StoredBlob> onChunkStored) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // Un octet est lu puis remis pour détecter la fin du flux sans créer de bloc vide.
+        PushbackInputStream source = new PushbackInputStream(new DigestInputStream(inputStream, digest));
+        List<String> chunkHashes = new ArrayList<>();
+        long size = 0;
+        int next;
+        while ((next = source.read()) != -1) {
+            source.unread(next);
+            StoredBlob chunk = put(new ChunkInputStream(source, chunkSize));
+            onChunkStored.accept(chunk);
+            chunkHashes.add(chunk.hash());
+            size += chunk.size();
+        }
+        return new ChunkedBlob(HexFormat.of().formatHex(digest.digest()), size, chunkSize, List.copyOf(chunkHashes));
+    }
+}
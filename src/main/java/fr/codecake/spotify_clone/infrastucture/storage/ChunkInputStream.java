@@ -0,0 +1,45 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Vue limitée à un bloc du flux source ; la fermer ne ferme pas la source, dont la lecture continue au bloc suivant.
+class ChunkInputStream extends InputStream {
+
+    private final InputStream source;
+
+    private long remaining;
+
+    ChunkInputStream(InputStream source, long chunkSize) {
+        this.source = source;
+        this.remaining = chunkSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(remaining <= 0) {
+            return -1;
+        }
+        int read = source.read();
+        if(read != -1) {
+            remaining--;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(remaining <= 0) {
+            return -1;
+        }
+        int read = source.read(b, off, (int) Math.min(len, remaining));
+        if(read > 0) {
+            remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,12 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+import java.util.List;
+
+// hash et size portent sur le contenu entier ; chaque bloc de chunkSize octets (le dernier peut être plus court) est un blob.
+public record ChunkedBlob(
+        String hash,
+        long size,
+        int chunkSize,
+        List<String> chunkHashes
+) {
+}
@@ -0,0 +1,168 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+public class LocalFileSystemBlobStore implements BlobStore {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path rootPath;
+
+    private final Path tmpPath;
+
+    private final int copyBufferSize;
+
+    private final int maxBufferedSize;
+
+    public LocalFileSystemBlobStore(Path rootPath, int copyBufferSize, int maxBufferedSize) throws IOException {
+        this.rootPath = rootPath;
+        this.tmpPath = rootPath.resolve("tmp");
+        this.copyBufferSize = copyBufferSize;
+        this.maxBufferedSize = maxBufferedSize;
+        Files.createDirectories(tmpPath);
+    }
+
+    /**
+     * Un contenu d'au plus maxBufferedSize octets (bloc audio, pochette) est haché en mémoire avant toute écriture :
+     * s'il est déjà présent, rien n'est écrit sur disque. Au-delà, le contenu est recopié dans un fichier temporaire
+     * pendant le calcul du hash, puis déplacé ou supprimé selon qu'il existait déjà.
+     */
+    @Override
+    public StoredBlob put(InputStream inputStream) throws IOException {
+        byte[] head = inputStream.readNBytes(maxBufferedSize + 1);
+        if (head.length <= maxBufferedSize) {
+            return putBuffered(head);
+        }
+
+        MessageDigest digest = newDigest();
+        Path tmpFile = Files.createTempFile(tmpPath, "blob-", ".part");
+        long size = head.length;
+        try (OutputStream outputStream = Files.newOutputStream(tmpFile)) {
+            digest.update(head);
+            outputStream.write(head);
+            // Seul tampon alloué au-delà du début du contenu : la mémoire est bornée quelle que soit sa taille.
+            byte[] buffer = new byte[copyBufferSize];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                outputStream.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            Files.delete(tmpFile);
+            touch(target);
+            return new StoredBlob(hash, size, true);
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredBlob(hash, size, false);
+    }
+
+    private StoredBlob putBuffered(byte[] content) throws IOException {
+        String hash = HexFormat.of().formatHex(newDigest().digest(content));
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            touch(target);
+            return new StoredBlob(hash, content.length, true);
+        }
+        // Écriture dans tmp puis déplacement atomique : un lecteur ne voit jamais de blob incomplet.
+        Path tmpFile = Files.createTempFile(tmpPath, "blob-", ".part");
+        try {
+            Files.write(tmpFile, content);
+            Files.createDirectories(target.getParent());
+            Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+        return new StoredBlob(hash, content.length, false);
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(pathOf(hash));
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+
+    @Override
+    public byte[] read(String hash) throws IOException {
+        return Files.readAllBytes(pathOf(hash));
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return Files.newInputStream(pathOf(hash));
+    }
+
+    // FileChannel.transferTo : le noyau copie directement depuis le cache de pages, sans tampon sur le tas.
+    @Override
+    public long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < count) {
+                long written = channel.transferTo(position + transferred, count - transferred, target);
+                if (written <= 0) {
+                    break;
+                }
+                transferred += written;
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public Instant lastModified(String hash) throws IOException {
+        return Files.getLastModifiedTime(pathOf(hash)).toInstant();
+    }
+
+    @Override
+    public boolean delete(String hash) throws IOException {
+        return Files.deleteIfExists(pathOf(hash));
+    }
+
+    // Un blob réutilisé par une écriture redevient récent : le ramasse-miettes ne le supprime pas avant qu'elle soit comptée.
+    private void touch(Path target) throws IOException {
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    // Répartition sur deux niveaux de répertoires (ab/cd/abcd...) pour éviter des dossiers trop volumineux.
+    private Path pathOf(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid blob hash : " + hash);
+        }
+        return rootPath.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
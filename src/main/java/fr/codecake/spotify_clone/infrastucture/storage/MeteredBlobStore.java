@@ -0,0 +1,98 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+
+/**
+ * Compte les écritures du BlobStore selon qu'elles ont réellement stocké le contenu ou trouvé un blob identique :
+ * storage.blob.writes et storage.blob.bytes, étiquetés outcome=stored|deduplicated.
+ * Les blocs d'un putChunked passent par put() et sont donc comptés un à un.
+ */
+public class MeteredBlobStore implements BlobStore {
+
+    private final BlobStore delegate;
+
+    private final Counter storedWrites;
+
+    private final Counter storedBytes;
+
+    private final Counter deduplicatedWrites;
+
+    private final Counter deduplicatedBytes;
+
+    public MeteredBlobStore(BlobStore delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.storedWrites = writes(meterRegistry, "stored");
+        this.storedBytes = bytes(meterRegistry, "stored");
+        this.deduplicatedWrites = writes(meterRegistry, "deduplicated");
+        this.deduplicatedBytes = bytes(meterRegistry, "deduplicated");
+    }
+
+    @Override
+    public StoredBlob put(InputStream inputStream) throws IOException {
+        StoredBlob storedBlob = delegate.put(inputStream);
+        if(storedBlob.deduplicated()) {
+            deduplicatedWrites.increment();
+            deduplicatedBytes.increment(storedBlob.size());
+        } else {
+            storedWrites.increment();
+            storedBytes.increment(storedBlob.size());
+        }
+        return storedBlob;
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return delegate.exists(hash);
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        return delegate.size(hash);
+    }
+
+    @Override
+    public byte[] read(String hash) throws IOException {
+        return delegate.read(hash);
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return delegate.open(hash);
+    }
+
+    @Override
+    public long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        return delegate.transferTo(hash, position, count, target);
+    }
+
+    @Override
+    public Instant lastModified(String hash) throws IOException {
+        return delegate.lastModified(hash);
+    }
+
+    @Override
+    public boolean delete(String hash) throws IOException {
+        return delegate.delete(hash);
+    }
+
+    private static Counter writes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("storage.blob.writes")
+                .description("Blobs written to the blob store")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter bytes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("storage.blob.bytes")
+                .description("Bytes written to the blob store")
+                .baseUnit("bytes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
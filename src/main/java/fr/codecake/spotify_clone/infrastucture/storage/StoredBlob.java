@@ -0,0 +1,9 @@
+package fr.codecake.spotify_clone.infrastucture.storage;
+
+// deduplicated : le contenu était déjà présent, rien n'a été écrit dans le store.
+public record StoredBlob(
+        String hash,
+        long size,
+        boolean deduplicated
+) {
+}
@@ -0,0 +1,131 @@
+package fr.codecake.spotify_clone.infrastucture.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression gzip des réponses des endpoints listés dans application.compression.cached-paths, mise en cache
+ * par ETag : une réponse déjà compressée pour cette version n'est pas recompressée. Les autres réponses
+ * sont compressées par le serveur (server.compression), avec le même seuil de taille.
+ * La variante compressée porte son propre ETag fort, suffixé par -gzip.
+ * Une réponse déjà compressée par le contrôleur (CatalogSnapshot, attribut PRECOMPRESSED_RESPONSE) est transmise telle quelle.
+ */
+@Component
+public class GzipResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private static final String GZIP_ETAG_SUFFIX = "-gzip\"";
+
+    public static final String PRECOMPRESSED_RESPONSE = GzipResponseCacheFilter.class.getName() + ".precompressed";
+
+    private final Set<String> cachedPaths;
+
+    private final long minResponseSize;
+
+    private final Cache<CompressedBodyKey, byte[]> compressedBodies;
+
+    public GzipResponseCacheFilter(MeterRegistry meterRegistry,
+                                   @Value("${application.compression.cached-paths:}") List<String> cachedPaths,
+                                   @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize,
+                                   @Value("${application.compression.cache.max-size:16MB}") DataSize maxSize,
+                                   @Value("${application.compression.cache.time-to-live:10m}") Duration timeToLive) {
+        this.cachedPaths = Set.copyOf(cachedPaths);
+        this.minResponseSize = minResponseSize.toBytes();
+        this.compressedBodies = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CompressedBodyKey key, byte[] body) -> body.length + key.etag().length())
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, compressedBodies, "gzipResponse");
+    }
+
+    // ETag de la variante compressée d'une réponse ; un If-None-Match peut porter l'une ou l'autre.
+    public static String gzipEtagOf(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX;
+    }
+
+    // "gzip;q=0" signifie que le client refuse explicitement gzip.
+    public static boolean acceptsGzip(List<String> acceptEncodings) {
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] codingAndWeight = coding.split(";");
+                if(codingAndWeight[0].trim().equalsIgnoreCase(GZIP)) {
+                    return codingAndWeight.length == 1 || !codingAndWeight[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.GET.matches(request.getMethod()) || !cachedPaths.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if(!acceptsGzip(Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING)))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper bufferedResponse = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, bufferedResponse);
+
+        String etag = bufferedResponse.getHeader(HttpHeaders.ETAG);
+        byte[] body = bufferedResponse.getContentAsByteArray();
+        // Seules les réponses complètes et versionnées par un ETag fort peuvent être réutilisées.
+        if(bufferedResponse.getStatus() != HttpServletResponse.SC_OK || etag == null || !etag.startsWith("\"")
+                || body.length < minResponseSize || request.getAttribute(PRECOMPRESSED_RESPONSE) != null
+                || bufferedResponse.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            bufferedResponse.copyBodyToResponse();
+            return;
+        }
+
+        byte[] compressedBody = compressedBodies.get(new CompressedBodyKey(etag, bufferedResponse.getContentType()),
+                ignored -> gzip(body));
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        response.setHeader(HttpHeaders.ETAG, gzipEtagOf(etag));
+        response.setContentLength(compressedBody.length);
+        response.getOutputStream().write(compressedBody);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to compress response body", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private record CompressedBodyKey(String etag, String contentType) {
+    }
+}
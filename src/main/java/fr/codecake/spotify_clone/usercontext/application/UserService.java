@@ -1,79 +1,86 @@
 package fr.codecake.spotify_clone.usercontext.application;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import fr.codecake.spotify_clone.usercontext.ReadUserDTO;
 import fr.codecake.spotify_clone.usercontext.domain.User;
 import fr.codecake.spotify_clone.usercontext.mapper.UserMapper;
 import fr.codecake.spotify_clone.usercontext.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed(value = "application.service", histogram = true)
 public class UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final Cache<String, Instant> lastSyncedModifiedDates;
 
-    public UserService(UserRepository userRepository, UserMapper userMapper) {
+    public UserService(UserRepository userRepository,
+                       UserMapper userMapper,
+                       @Value("${application.user.sync.debounce-max-size:10000}") long debounceMaxSize,
+                       @Value("${application.user.sync.debounce-ttl:1h}") Duration debounceTtl) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.lastSyncedModifiedDates = Caffeine.newBuilder()
+                .maximumSize(debounceMaxSize)
+                .expireAfterWrite(debounceTtl)
+                .build();
     }
 
 
-    public void syncWithIdp(OAuth2User oAuth2User) {
-        Map<String, Object> attributes = oAuth2User.getAttributes();
+    public void syncWithIdp(Authentication authentication) {
+        Map<String, Object> attributes = attributesOf(authentication);
         User user = mapOauth2AttributesToUser(attributes);
-        Optional<User> existingUser = userRepository.findOneByEmail(user.getEmail());
-        if (existingUser.isPresent()) {
-            if (attributes.get("updated_at") != null) {
-                Instant dbLastModifiedDate = existingUser.orElseThrow().getLastModifiedDate();
-                Instant idpModifiedDate;
-                if(attributes.get("updated_at") instanceof Instant) {
-                    idpModifiedDate = (Instant) attributes.get("updated_at");
-                } else {
-                    idpModifiedDate = Instant.ofEpochSecond((Integer) attributes.get("updated_at"));
-                }
-                if(idpModifiedDate.isAfter(dbLastModifiedDate)) {
-                    updateUser(user);
-                }
-            }
-        } else {
-            userRepository.saveAndFlush(user);
+        Instant idpModifiedDate = idpModifiedDate(attributes);
+
+        // Profil inchangé chez l'IdP depuis la dernière synchronisation : rien à écrire.
+        if(idpModifiedDate.equals(lastSyncedModifiedDates.getIfPresent(user.getEmail()))) {
+            return;
         }
+        userRepository.upsertFromIdp(user, idpModifiedDate);
+        lastSyncedModifiedDates.put(user.getEmail(), idpModifiedDate);
     }
 
-    private void updateUser(User user) {
-        Optional<User> userToUpdateOptional = userRepository.findOneByEmail(user.getEmail());
-
-        if(userToUpdateOptional.isPresent()) {
-            User userToUpdateUser = userToUpdateOptional.get();
-            userToUpdateUser.setFirstName(user.getFirstName());
-            userToUpdateUser.setLastName(user.getLastName());
-            userToUpdateUser.setEmail(user.getEmail());
-            userToUpdateUser.setImageUrl(user.getImageUrl());
-            userRepository.saveAndFlush(userToUpdateUser);
+    // Sans updated_at, un utilisateur existant n'est jamais mis à jour (Instant.EPOCH n'est postérieur à aucune date).
+    private Instant idpModifiedDate(Map<String, Object> attributes) {
+        Object updatedAt = attributes.get("updated_at");
+        if(updatedAt == null) {
+            return Instant.EPOCH;
+        } else if(updatedAt instanceof Instant) {
+            return (Instant) updatedAt;
+        } else {
+            return Instant.ofEpochSecond(((Number) updatedAt).longValue());
         }
-
-        /*
-        L'Optional n'est pas remplacé par userToUpdateUser.
-        L'Optional est un conteneur temporaire pour la valeur renvoyée par la méthode findOneByEmail().
-        Une fois que vous utilisez get() pour extraire la valeur de l'Optional,
-        vous travaillez directement avec l'objet extrait (userToUpdateUser).
-         */
     }
 
 
     public ReadUserDTO getAuthenticatedUserFormSecurityContext() {
-        OAuth2User principal = (OAuth2User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        User user = mapOauth2AttributesToUser(principal.getAttributes());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User user = mapOauth2AttributesToUser(attributesOf(authentication));
         return userMapper.userToReadUserDTO(user);
     }
 
+    // Session OAuth2 du navigateur (OAuth2User) ou jeton d'accès envoyé en Bearer (Jwt) : mêmes claims OIDC.
+    private Map<String, Object> attributesOf(Authentication authentication) {
+        if(authentication.getPrincipal() instanceof Jwt jwt) {
+            return jwt.getClaims();
+        }
+        return ((OAuth2User) authentication.getPrincipal()).getAttributes();
+    }
+
 
 
     /**
@@ -91,8 +98,10 @@ public class UserService {
      * 6. Mappe l'adresse email à partir de "email" ou dérive à partir de "sub" et "username".
      * 7. Mappe l'URL de l'image de profil à partir de "picture".
      * 8. Retourne l'objet User rempli avec les informations extraites.
+     *
+     * Visibilité package : la méthode est mesurée par les benchmarks JMH (src/jmh/java).
      */
-    private User mapOauth2AttributesToUser(Map<String, Object> oauth2Attributes) {
+    User mapOauth2AttributesToUser(Map<String, Object> oauth2Attributes) {
         User user = new User();
         String sub = String.valueOf(oauth2Attributes.get("sub"));
 
@@ -7,10 +7,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,11 +32,11 @@ public class AuthRessource {
     }
 
     @GetMapping("/get-authenticated-user")
-    public ResponseEntity<ReadUserDTO> getAuthenticatedUser(@AuthenticationPrincipal OAuth2User user) {
-        if(user == null) {
+    public ResponseEntity<ReadUserDTO> getAuthenticatedUser(Authentication authentication) {
+        if(authentication == null) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         } else {
-            userService.syncWithIdp(user);
+            userService.syncWithIdp(authentication);
             ReadUserDTO userFromAuthentication = userService.getAuthenticatedUserFormSecurityContext();
             return ResponseEntity.ok().body(userFromAuthentication);
         }
@@ -61,7 +60,8 @@ public class AuthRessource {
  * 2. La méthode getAuthenticatedUser est appelée pour obtenir les détails de l'utilisateur.
  * 3. La méthode getAuthenticatedUser appelle syncWithIdp pour synchroniser les informations utilisateur avec le fournisseur d'identité.
  * 4. La méthode syncWithIdp utilise mapOauth2AttributesToUser pour convertir les attributs OAuth2 en entité User.
- * 5. Si l'utilisateur existe déjà, syncWithIdp appelle updateUser pour mettre à jour les informations si nécessaire.
+ * 5. syncWithIdp insère ou met à jour l'utilisateur en une seule requête (upsert sur l'email),
+ *    et ne fait rien si le updated_at de l'IdP n'a pas changé depuis la dernière synchronisation.
 
  * Déconnexion :
 
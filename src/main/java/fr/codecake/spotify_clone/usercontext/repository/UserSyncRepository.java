@@ -0,0 +1,10 @@
+package fr.codecake.spotify_clone.usercontext.repository;
+
+import fr.codecake.spotify_clone.usercontext.domain.User;
+
+import java.time.Instant;
+
+public interface UserSyncRepository {
+
+    void upsertFromIdp(User user, Instant idpModifiedDate);
+}
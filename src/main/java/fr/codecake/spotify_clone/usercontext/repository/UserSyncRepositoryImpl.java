@@ -0,0 +1,68 @@
+package fr.codecake.spotify_clone.usercontext.repository;
+
+import fr.codecake.spotify_clone.infrastucture.persistence.DatabaseVendor;
+import fr.codecake.spotify_clone.usercontext.domain.Subscription;
+import fr.codecake.spotify_clone.usercontext.domain.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public class UserSyncRepositoryImpl implements UserSyncRepository {
+
+    // Une seule instruction, arbitrée par l'index unique ux_user_email : deux premières connexions simultanées
+    // ne créent qu'une ligne. La mise à jour n'a lieu que si le profil a changé chez l'IdP depuis la dernière écriture.
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO {h-schema}spotify_user
+                (id, email, first_name, last_name, image_url, subscription, created_date, last_modified_date)
+            VALUES (nextval('{h-schema}user_generator'), :email, :firstName, :lastName, :imageUrl, :subscription, :now, :now)
+            ON CONFLICT (email) DO UPDATE
+            SET first_name = EXCLUDED.first_name,
+                last_name = EXCLUDED.last_name,
+                image_url = EXCLUDED.image_url,
+                last_modified_date = EXCLUDED.last_modified_date
+            WHERE spotify_user.last_modified_date < :idpModifiedDate
+            """;
+
+    // Équivalent portable (H2) via MERGE.
+    private static final String PORTABLE_UPSERT = """
+            MERGE INTO {h-schema}spotify_user u
+            USING (VALUES (CAST(:email AS VARCHAR(255)), CAST(:firstName AS VARCHAR(50)),
+                           CAST(:lastName AS VARCHAR(50)), CAST(:imageUrl AS VARCHAR(256))))
+                AS idp(email, first_name, last_name, image_url)
+            ON u.email = idp.email
+            WHEN MATCHED AND u.last_modified_date < :idpModifiedDate THEN UPDATE
+                SET first_name = idp.first_name, last_name = idp.last_name,
+                    image_url = idp.image_url, last_modified_date = :now
+            WHEN NOT MATCHED THEN INSERT
+                (id, email, first_name, last_name, image_url, subscription, created_date, last_modified_date)
+                VALUES (NEXT VALUE FOR {h-schema}user_generator, idp.email, idp.first_name, idp.last_name,
+                        idp.image_url, :subscription, :now, :now)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DatabaseVendor databaseVendor;
+
+    public UserSyncRepositoryImpl(DatabaseVendor databaseVendor) {
+        this.databaseVendor = databaseVendor;
+    }
+
+    @Override
+    @Transactional
+    public void upsertFromIdp(User user, Instant idpModifiedDate) {
+        Subscription subscription = user.getSubscription();
+        entityManager.createNativeQuery(databaseVendor.isPostgres() ? POSTGRES_UPSERT : PORTABLE_UPSERT)
+                .setParameter("email", user.getEmail())
+                .setParameter("firstName", user.getFirstName())
+                .setParameter("lastName", user.getLastName())
+                .setParameter("imageUrl", user.getImageUrl())
+                // Même représentation que le mapping JPA de l'enum (ordinal).
+                .setParameter("subscription", String.valueOf(subscription.ordinal()))
+                .setParameter("now", Instant.now())
+                .setParameter("idpModifiedDate", idpModifiedDate)
+                .executeUpdate();
+    }
+}
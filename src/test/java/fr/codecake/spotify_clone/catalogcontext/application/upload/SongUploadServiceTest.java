@@ -0,0 +1,134 @@
+package fr.codecake.spotify_clone.catalogcontext.application.upload;
+
+import fr.codecake.spotify_clone.catalogcontext.application.BlobRefService;
+import fr.codecake.spotify_clone.catalogcontext.application.dto.UploadedContentDTO;
+import fr.codecake.spotify_clone.infrastucture.service.dto.State;
+import fr.codecake.spotify_clone.infrastucture.service.dto.StatusNotification;
+import fr.codecake.spotify_clone.infrastucture.storage.LocalFileSystemBlobStore;
+import fr.codecake.spotify_clone.infrastucture.storage.StoredBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SongUploadServiceTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+    @TempDir
+    Path blobRoot;
+
+    private LocalFileSystemBlobStore blobStore;
+
+    private BlobRefService blobRefService;
+
+    private SongUploadService songUploadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobStore = new LocalFileSystemBlobStore(blobRoot, 1024, 32);
+        blobRefService = mock(BlobRefService.class);
+        songUploadService = new SongUploadService(blobStore, blobRefService, DataSize.ofBytes(64), DataSize.ofKilobytes(8), DataSize.ofBytes(16));
+    }
+
+    @Test
+    void storesCoverWithSniffedContentType() {
+        State<UploadedContentDTO, String> result = songUploadService.storeCover(new ByteArrayInputStream(PNG_HEADER));
+
+        assertThat(result.getStatus()).isEqualTo(StatusNotification.OK);
+        assertThat(result.getValue().contentType()).isEqualTo("image/png");
+        assertThat(result.getValue().size()).isEqualTo(PNG_HEADER.length);
+        assertThat(result.getValue().hash()).hasSize(64);
+    }
+
+    @Test
+    void rejectsCoverLargerThanLimit() {
+        byte[] cover = Arrays.copyOf(PNG_HEADER, 65);
+
+        State<UploadedContentDTO, String> result = songUploadService.storeCover(new ByteArrayInputStream(cover));
+
+        assertThat(result.getStatus()).isEqualTo(StatusNotification.ERROR);
+        assertThat(blobRoot.resolve("tmp")).isEmptyDirectory();
+    }
+
+    @Test
+    void rejectsImageSentAsAudio() {
+        State<UploadedContentDTO, String> result = songUploadService.storeAudio(new ByteArrayInputStream(PNG_HEADER));
+
+        assertThat(result.getStatus()).isEqualTo(StatusNotification.ERROR);
+        assertThat(result.getError()).contains("image/png");
+    }
+
+    @Test
+    void storesAudioAsFixedSizeChunks() throws IOException, NoSuchAlgorithmException {
+        byte[] audio = new byte[40];
+        Arrays.fill(audio, (byte) 7);
+        audio[0] = 'I';
+        audio[1] = 'D';
+        audio[2] = '3';
+
+        State<UploadedContentDTO, String> result = songUploadService.storeAudio(new ByteArrayInputStream(audio));
+
+        assertThat(result.getStatus()).isEqualTo(StatusNotification.OK);
+        assertThat(result.getValue().contentType()).isEqualTo("audio/mpeg");
+        assertThat(result.getValue().size()).isEqualTo(audio.length);
+        assertThat(result.getValue().chunkSize()).isEqualTo(16);
+        assertThat(result.getValue().chunkHashes()).hasSize(3);
+        assertThat(result.getValue().hash())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(audio)));
+
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (String chunkHash : result.getValue().chunkHashes()) {
+            reassembled.writeBytes(blobStore.read(chunkHash));
+        }
+        assertThat(reassembled.toByteArray()).isEqualTo(audio);
+    }
+
+    @Test
+    void doesNotWriteContentAlreadyStored() throws IOException {
+        byte[] largeCover = Arrays.copyOf(PNG_HEADER, 50);
+        String coverHash = songUploadService.storeCover(new ByteArrayInputStream(PNG_HEADER)).getValue().hash();
+        String largeCoverHash = songUploadService.storeCover(new ByteArrayInputStream(largeCover)).getValue().hash();
+
+        StoredBlob cover = blobStore.put(new ByteArrayInputStream(PNG_HEADER));
+        StoredBlob spooledCover = blobStore.put(new ByteArrayInputStream(largeCover));
+
+        assertThat(cover.hash()).isEqualTo(coverHash);
+        assertThat(cover.deduplicated()).isTrue();
+        assertThat(spooledCover.hash()).isEqualTo(largeCoverHash);
+        assertThat(spooledCover.deduplicated()).isTrue();
+        assertThat(blobRoot.resolve("tmp")).isEmptyDirectory();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tracksChunksWrittenBeforeRejection() {
+        byte[] audio = new byte[8 * 1024 + 1];
+        audio[0] = 'I';
+        audio[1] = 'D';
+        audio[2] = '3';
+
+        State<UploadedContentDTO, String> result = songUploadService.storeAudio(new ByteArrayInputStream(audio));
+
+        assertThat(result.getStatus()).isEqualTo(StatusNotification.ERROR);
+        ArgumentCaptor<List<StoredBlob>> trackedBlobs = ArgumentCaptor.forClass(List.class);
+        verify(blobRefService).track(trackedBlobs.capture());
+        assertThat(trackedBlobs.getValue()).isNotEmpty()
+                .allSatisfy(storedBlob -> assertThat(blobStore.exists(storedBlob.hash())).isTrue());
+    }
+}
@@ -0,0 +1,72 @@
+package fr.codecake.spotify_clone.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogramme de latences en microsecondes, à intervalles log-linéaires : 32 sous-intervalles par puissance de deux,
+ * soit une erreur relative inférieure à 3 % sur les percentiles, pour une taille fixe quel que soit le nombre de mesures.
+ * Enregistrement sans verrou, partagé par tous les clients d'un endpoint.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        max.accumulate(value);
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Borne haute de l'intervalle contenant le percentile demandé (0 < percentile <= 100).
+    long percentile(double percentile) {
+        long total = count();
+        if(total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if(seen >= rank) {
+                return Math.min(lowerBoundOf(i + 1) - 1, max());
+            }
+        }
+        return max();
+    }
+
+    // Valeurs < 64 : un intervalle par valeur ; au-delà, les 5 bits qui suivent le bit de poids fort.
+    static int indexOf(long value) {
+        if(value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    static long lowerBoundOf(int index) {
+        if(index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+    }
+}
@@ -0,0 +1,291 @@
+package fr.codecake.spotify_clone.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Générateur de charge en boucle fermée : chaque client virtuel enchaîne ses requêtes sans pause,
+ * en tirant l'opération selon le mélange demandé. Les latences sont mesurées côté client, après la période de chauffe.
+ */
+class LoadGenerator implements AutoCloseable {
+
+    enum Operation {
+        LIST, SEARCH, CONTENT, LIKE, UPLOAD
+    }
+
+    // firstError : statut HTTP ou exception de la première erreur mesurée, null sans erreur.
+    record OperationReport(Operation operation, long requests, long errors, double throughput,
+                           long p50, long p90, long p99, long p999, long max, String firstError) {
+    }
+
+    private static final String[] SEARCH_TERMS = {"song", "title", "author", "1", "42", "night", "zz"};
+
+    // Double soumission du jeton CSRF : la même valeur en cookie et en en-tête suffit à CookieCsrfTokenRepository.
+    private static final String CSRF_TOKEN = UUID.randomUUID().toString();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final HttpClient httpClient;
+
+    private final URI baseUri;
+
+    private final List<String> accessTokens;
+
+    private final Map<Operation, Integer> mix;
+
+    private final int audioSize;
+
+    private final byte[] cover;
+
+    private final List<UUID> songPublicIds = new CopyOnWriteArrayList<>();
+
+    LoadGenerator(URI baseUri, List<String> accessTokens, Map<Operation, Integer> mix, int audioSize) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(clientExecutor)
+                .build();
+        this.baseUri = baseUri;
+        this.accessTokens = accessTokens;
+        this.mix = new EnumMap<>(mix);
+        this.audioSize = audioSize;
+        this.cover = pngCover();
+    }
+
+    // Connexion de chaque utilisateur (synchronisation avec l'IdP, comme le front au login), puis catalogue initial
+    // créé par l'API d'upload, avant toute mesure.
+    void seed(int songCount) throws IOException, InterruptedException {
+        for (String accessToken : accessTokens) {
+            int status = get("/api/get-authenticated-user", accessToken);
+            if(status != 200) {
+                throw new IllegalStateException("Sign-in failed with status " + status);
+            }
+        }
+        for (int i = 0; i < songCount; i++) {
+            HttpResponse<String> response = upload(accessTokens.get(i % accessTokens.size()), i);
+            if(response.statusCode() != 200) {
+                throw new IllegalStateException("Seed upload failed with status " + response.statusCode() + " : " + response.body());
+            }
+        }
+    }
+
+    List<OperationReport> run(int clients, Duration warmup, Duration duration) throws InterruptedException {
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        Map<Operation, AtomicReference<String>> firstErrors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+            firstErrors.put(operation, new AtomicReference<>());
+        }
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        List<Future<?>> clientLoops = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            String accessToken = accessTokens.get(client % accessTokens.size());
+            clientLoops.add(clientExecutor.submit(() -> {
+                while (System.nanoTime() < measureUntil) {
+                    Operation operation = nextOperation();
+                    long start = System.nanoTime();
+                    String error;
+                    try {
+                        int status = execute(operation, accessToken);
+                        error = status >= 400 ? "HTTP " + status : null;
+                    } catch (IOException e) {
+                        error = e.toString();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    long end = System.nanoTime();
+                    // Comptée à sa fin : en saturation une requête dure plus que la fenêtre, elle doit tout de même apparaître.
+                    if(end >= measureFrom && end <= measureUntil) {
+                        latencies.get(operation).record(TimeUnit.NANOSECONDS.toMicros(end - start));
+                        if(error != null) {
+                            errors.get(operation).increment();
+                            firstErrors.get(operation).compareAndSet(null, error);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> clientLoop : clientLoops) {
+            try {
+                clientLoop.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load client failed", e.getCause());
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        List<OperationReport> reports = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            if(histogram.count() == 0) {
+                continue;
+            }
+            reports.add(new OperationReport(operation, histogram.count(), errors.get(operation).sum(),
+                    histogram.count() / seconds, histogram.percentile(50), histogram.percentile(90),
+                    histogram.percentile(99), histogram.percentile(99.9), histogram.max(),
+                    firstErrors.get(operation).get()));
+        }
+        return reports;
+    }
+
+    private Operation nextOperation() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int draw = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            draw -= entry.getValue();
+            if(draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    private int execute(Operation operation, String accessToken) throws IOException, InterruptedException {
+        return switch (operation) {
+            case LIST -> get("/api/songs?limit=50", accessToken);
+            case SEARCH -> get("/api/songs/search?term="
+                    + URLEncoder.encode(SEARCH_TERMS[ThreadLocalRandom.current().nextInt(SEARCH_TERMS.length)], StandardCharsets.UTF_8),
+                    accessToken);
+            case CONTENT -> get("/api/songs/" + randomSong() + "/audio", accessToken);
+            case LIKE -> like(accessToken);
+            case UPLOAD -> upload(accessToken, ThreadLocalRandom.current().nextInt(1_000_000)).statusCode();
+        };
+    }
+
+    private int get(String path, String accessToken) throws IOException, InterruptedException {
+        HttpRequest request = authenticated(path, accessToken).GET().build();
+        // Le corps est lu entièrement puis jeté : la latence inclut le transfert complet de la réponse.
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int like(String accessToken) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "favorite", ThreadLocalRandom.current().nextBoolean(),
+                "publicId", randomSong()));
+        HttpRequest request = withCsrf(authenticated("/api/songs/like", accessToken))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpResponse<String> upload(String accessToken, int number) throws IOException, InterruptedException {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        String dto = objectMapper.writeValueAsString(Map.of(
+                "title", Map.of("value", "Song title " + number),
+                "author", Map.of("value", "Author " + (number % 97))));
+
+        ByteArrayOutputStream multipart = new ByteArrayOutputStream(audioSize + cover.length + 1024);
+        writePart(multipart, boundary, "dto", null, "application/json", dto.getBytes(StandardCharsets.UTF_8));
+        writePart(multipart, boundary, "cover", "cover.png", "image/png", cover);
+        writePart(multipart, boundary, "file", "song.mp3", "audio/mpeg", audio());
+        multipart.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest request = withCsrf(authenticated("/api/songs", accessToken))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart.toByteArray()))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if(response.statusCode() == 200) {
+            JsonNode song = objectMapper.readTree(response.body());
+            songPublicIds.add(UUID.fromString(song.get("publicId").asText()));
+        }
+        return response;
+    }
+
+    private void writePart(ByteArrayOutputStream multipart, String boundary, String name, String filename,
+                           String contentType, byte[] content) {
+        StringBuilder headers = new StringBuilder()
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if(filename != null) {
+            headers.append("; filename=\"").append(filename).append('"');
+        }
+        headers.append("\r\nContent-Type: ").append(contentType).append("\r\n\r\n");
+        multipart.writeBytes(headers.toString().getBytes(StandardCharsets.US_ASCII));
+        multipart.writeBytes(content);
+        multipart.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private HttpRequest.Builder authenticated(String path, String accessToken) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Authorization", "Bearer " + accessToken);
+    }
+
+    private HttpRequest.Builder withCsrf(HttpRequest.Builder request) {
+        return request
+                .header("Cookie", "XSRF-TOKEN=" + CSRF_TOKEN)
+                .header("X-XSRF-TOKEN", CSRF_TOKEN);
+    }
+
+    private UUID randomSong() {
+        return songPublicIds.get(ThreadLocalRandom.current().nextInt(songPublicIds.size()));
+    }
+
+    // En-tête ID3 suivi d'octets aléatoires : accepté comme audio/mpeg par l'upload, contenu unique à chaque envoi.
+    private byte[] audio() {
+        byte[] audio = new byte[audioSize];
+        ThreadLocalRandom.current().nextBytes(audio);
+        audio[0] = 'I';
+        audio[1] = 'D';
+        audio[2] = '3';
+        return audio;
+    }
+
+    private static byte[] pngCover() {
+        BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, (x * 255 / image.getWidth()) << 16 | (y * 255 / image.getHeight()) << 8);
+            }
+        }
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", png);
+            return png.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+        clientExecutor.close();
+    }
+}
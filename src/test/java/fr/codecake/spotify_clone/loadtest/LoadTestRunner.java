@@ -0,0 +1,154 @@
+package fr.codecake.spotify_clone.loadtest;
+
+import fr.codecake.spotify_clone.SpotifyCloneBackApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test de charge autonome : démarre l'application avec le profil loadtest (H2 en mémoire, IdP simulé),
+ * crée un catalogue puis mesure chaque palier de clients, pour chaque mode de threads du serveur.
+ * Tout tourne dans la même JVM, sur la boucle locale.
+ *
+ * mvn -Ploadtest test-compile exec:exec [-Dloadtest.args="--threads=virtual --clients=1000 --duration=1m"]
+ *
+ * Options (valeurs par défaut) :
+ * --threads=platform,virtual     modes du serveur comparés (spring.threads.virtual.enabled)
+ * --clients=100,1000,10000       paliers de clients simultanés, en boucle fermée
+ * --warmup=10s --duration=30s    chauffe non mesurée puis mesure, par palier
+ * --mix=LIST:40,SEARCH:20,CONTENT:20,LIKE:15,UPLOAD:5
+ * --seed-songs=200 --users=100 --audio-size=256KB
+ *
+ * Au-delà de quelques milliers de clients, augmenter la limite de descripteurs de fichiers (ulimit -n) :
+ * chaque client tient une connexion ouverte côté client et côté serveur.
+ */
+public class LoadTestRunner {
+
+    private static final Map<String, String> DEFAULT_OPTIONS = Map.of(
+            "threads", "platform,virtual",
+            "clients", "100,1000,10000",
+            "warmup", "10s",
+            "duration", "30s",
+            "mix", "LIST:40,SEARCH:20,CONTENT:20,LIKE:15,UPLOAD:5",
+            "seed-songs", "200",
+            "users", "100",
+            "audio-size", "256KB");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<String> threadModes = Arrays.asList(options.get("threads").split(","));
+        int[] clientCounts = Arrays.stream(options.get("clients").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Map<LoadGenerator.Operation, Integer> mix = parseMix(options.get("mix"));
+        int seedSongs = Integer.parseInt(options.get("seed-songs"));
+        int users = Integer.parseInt(options.get("users"));
+        int audioSize = Math.toIntExact(DataSize.parse(options.get("audio-size")).toBytes());
+
+        // Lu avant le démarrage : un redémarrage par devtools relancerait cette méthode main sans ses arguments.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Path workDir = Files.createTempDirectory("spotify-clone-loadtest");
+
+        try (StubIdentityProvider identityProvider = new StubIdentityProvider(workDir)) {
+            identityProvider.start();
+            // Découverte OIDC et clés JWKS lues par l'application en https sur l'IdP simulé, au certificat auto-signé.
+            SSLContext.setDefault(identityProvider.clientSslContext());
+            HttpsURLConnection.setDefaultSSLSocketFactory(identityProvider.clientSslContext().getSocketFactory());
+            List<String> accessTokens = new ArrayList<>(users);
+            for (int user = 0; user < users; user++) {
+                accessTokens.add(identityProvider.accessToken("user" + user + "@loadtest.local"));
+            }
+
+            for (String threadMode : threadModes) {
+                try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpotifyCloneBackApplication.class)
+                        .profiles("loadtest")
+                        .properties(Map.of(
+                                "virtual_threads_enabled", String.valueOf(threadMode.equals("virtual")),
+                                "loadtest.run-id", "loadtest_" + threadMode,
+                                "loadtest.work-dir", workDir.resolve(threadMode).toString(),
+                                "loadtest.issuer", identityProvider.issuer(),
+                                "okta.oauth2.audience", StubIdentityProvider.AUDIENCE))
+                        .run()) {
+                    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    try (LoadGenerator loadGenerator = new LoadGenerator(URI.create("http://127.0.0.1:" + port + "/"),
+                            accessTokens, mix, audioSize)) {
+                        loadGenerator.seed(seedSongs);
+                        for (int clients : clientCounts) {
+                            List<LoadGenerator.OperationReport> reports = loadGenerator.run(clients, warmup, duration);
+                            print(threadMode, clients, duration, reports);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void print(String threadMode, int clients, Duration duration, List<LoadGenerator.OperationReport> reports) {
+        System.out.printf("%n== threads=%s clients=%d duration=%ss (latencies in ms)%n", threadMode, clients, duration.toSeconds());
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        double totalThroughput = 0;
+        for (LoadGenerator.OperationReport report : reports) {
+            System.out.printf("%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    report.operation(), report.requests(), report.errors(), report.throughput(),
+                    report.p50() / 1000.0, report.p90() / 1000.0, report.p99() / 1000.0,
+                    report.p999() / 1000.0, report.max() / 1000.0);
+            totalRequests += report.requests();
+            totalErrors += report.errors();
+            totalThroughput += report.throughput();
+        }
+        System.out.printf("%-8s %10d %8d %10.1f%n", "TOTAL", totalRequests, totalErrors, totalThroughput);
+        for (LoadGenerator.OperationReport report : reports) {
+            if(report.firstError() != null) {
+                System.out.printf("%-8s first error: %s%n", report.operation(), report.firstError());
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULT_OPTIONS);
+        for (String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --option=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if(!DEFAULT_OPTIONS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + name + ", expected one of " + DEFAULT_OPTIONS.keySet());
+            }
+            options.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static Map<LoadGenerator.Operation, Integer> parseMix(String mix) {
+        Map<LoadGenerator.Operation, Integer> weights = new EnumMap<>(LoadGenerator.Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationAndWeight = entry.split(":");
+            int weight = Integer.parseInt(operationAndWeight[1]);
+            if(weight > 0) {
+                weights.put(LoadGenerator.Operation.valueOf(operationAndWeight[0].trim().toUpperCase()), weight);
+            }
+        }
+        if(weights.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix must contain at least one positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,217 @@
+package fr.codecake.spotify_clone.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fournisseur d'identité OIDC minimal sur la boucle locale : document de découverte et clés JWKS,
+ * de quoi laisser démarrer le client OAuth2 et valider les jetons Bearer émis par {@link #accessToken(String)}.
+ * Aucun flux de connexion n'est implémenté, les clients de charge reçoivent directement leur jeton.
+ * Servi en https (le starter Okta refuse tout autre issuer) avec un certificat auto-signé généré par keytool :
+ * l'application doit utiliser {@link #clientSslContext()} pour lui faire confiance.
+ */
+class StubIdentityProvider implements AutoCloseable {
+
+    static final String AUDIENCE = "api://loadtest";
+
+    private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+
+    private static final String AUTHORIZATION_SERVER_PATH = "/.well-known/oauth-authorization-server";
+
+    private static final String JWKS_PATH = "/.well-known/jwks.json";
+
+    // URL des clés déduite de l'issuer par le starter Okta quand elle n'est pas lue dans le document de découverte.
+    private static final String OKTA_KEYS_PATH = "/v1/keys";
+
+    private static final String KEY_ALIAS = "loadtest";
+
+    private static final char[] KEY_STORE_PASSWORD = "loadtest".toCharArray();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RSAKey signingKey;
+
+    private final JwtEncoder jwtEncoder;
+
+    private final HttpsServer server;
+
+    private final SSLContext clientSslContext;
+
+    private final String issuer;
+
+    StubIdentityProvider(Path workDir) throws IOException {
+        try {
+            this.signingKey = new RSAKeyGenerator(2048).keyID("loadtest").generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unable to generate the signing key", e);
+        }
+        this.jwtEncoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(signingKey)));
+        KeyStore keyStore = generateKeyStore(workDir.resolve("identity-provider.p12"));
+        this.server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setHttpsConfigurator(new HttpsConfigurator(serverSslContext(keyStore)));
+        this.clientSslContext = clientSslContext(keyStore);
+        this.issuer = "https://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        // Spring construit l'URL de découverte en concaténant le chemin de l'issuer ("/") : "//.well-known/..." doit répondre aussi.
+        server.createContext("/", this::handle);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String issuer() {
+        return issuer;
+    }
+
+    // Ne fait confiance qu'au certificat de l'IdP simulé.
+    SSLContext clientSslContext() {
+        return clientSslContext;
+    }
+
+    // Claims d'un jeton d'accès Auth0 enrichi du profil, comme lus par UserService.
+    String accessToken(String email) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject("loadtest|" + email)
+                .audience(List.of(AUDIENCE))
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofDays(1)))
+                .claim("email", email)
+                .claim("preferred_username", email)
+                .claim("given_name", "Load")
+                .claim("family_name", "Test")
+                .claim("updated_at", now.getEpochSecond())
+                .build();
+        JwsHeader header = JwsHeader.with(SignatureAlgorithm.RS256).keyId(signingKey.getKeyID()).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try (exchange) {
+            if(path.endsWith(DISCOVERY_PATH) || path.endsWith(AUTHORIZATION_SERVER_PATH)) {
+                respond(exchange, discoveryDocument());
+            } else if(path.endsWith(JWKS_PATH) || path.endsWith(OKTA_KEYS_PATH)) {
+                respond(exchange, new JWKSet(signingKey.toPublicJWK()).toJSONObject());
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    private Map<String, Object> discoveryDocument() {
+        return Map.of(
+                "issuer", issuer,
+                "authorization_endpoint", issuer + "authorize",
+                "token_endpoint", issuer + "oauth/token",
+                "userinfo_endpoint", issuer + "userinfo",
+                "jwks_uri", issuer + JWKS_PATH.substring(1),
+                "response_types_supported", List.of("code"),
+                "subject_types_supported", List.of("public"),
+                "id_token_signing_alg_values_supported", List.of("RS256"),
+                "scopes_supported", List.of("openid", "profile", "email"));
+    }
+
+    private void respond(HttpExchange exchange, Map<String, Object> body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(json);
+        }
+    }
+
+    // Certificat valable pour l'adresse de la boucle locale, celle de l'issuer.
+    private static KeyStore generateKeyStore(Path keyStorePath) throws IOException {
+        Process keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", KEY_ALIAS, "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+                "-dname", "CN=" + InetAddress.getLoopbackAddress().getHostAddress(),
+                "-ext", "SAN=ip:" + InetAddress.getLoopbackAddress().getHostAddress(),
+                "-storetype", "PKCS12", "-keystore", keyStorePath.toString(),
+                "-storepass", new String(KEY_STORE_PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(keytool.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if(keytool.waitFor() != 0) {
+                throw new IllegalStateException("Unable to generate the TLS certificate: " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating the TLS certificate", e);
+        }
+
+        try (InputStream inputStream = Files.newInputStream(keyStorePath)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(inputStream, KEY_STORE_PASSWORD);
+            return keyStore;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to load the TLS certificate", e);
+        }
+    }
+
+    private static SSLContext serverSslContext(KeyStore keyStore) {
+        try {
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create the server TLS context", e);
+        }
+    }
+
+    private static SSLContext clientSslContext(KeyStore keyStore) {
+        try {
+            KeyStore trustStore = KeyStore.getInstance("PKCS12");
+            trustStore.load(null, null);
+            trustStore.setCertificateEntry(KEY_ALIAS, keyStore.getCertificate(KEY_ALIAS));
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            return sslContext;
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Unable to create the client TLS context", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}